@@ -25,11 +25,15 @@ dependencies {
 
 tasks.javadoc {
     exclude("net/kite/Main.java")
+    exclude("net/kite/benchmark/**")
     exclude("net/kite/board/Board.java")
     exclude("net/kite/board/bit/**")
     exclude("net/kite/board/history/**")
+    exclude("net/kite/board/order/**")
     exclude("net/kite/board/score/**")
+    exclude("net/kite/board/search/**")
     exclude("net/kite/demo/**")
+    exclude("net/kite/tool/**")
 }
 
 tasks.test {
@@ -49,6 +53,63 @@ tasks.register<Copy>("copyDemoAssetFiles") {
     into("build/war-unpacked")
 }
 
+tasks.register<JavaExec>("saveDemoOpeningBook") {
+    mainClass = "net.kite.tool.OpeningBookSaver"
+    classpath = sourceSets["main"].runtimeClasspath
+    args("build/war-unpacked/opening.kob")
+}
+
+tasks.register<JavaExec>("shardDemoOpeningBook") {
+    mainClass = "net.kite.tool.OpeningBookSharder"
+    classpath = sourceSets["main"].runtimeClasspath
+    maxHeapSize = "4g"
+    args("build/war-unpacked/opening_shards")
+}
+
+tasks.register<JavaExec>("scoreCacheBenchmark") {
+    mainClass = "net.kite.benchmark.ScoreCacheBenchmark"
+    classpath = sourceSets["main"].runtimeClasspath
+}
+
+tasks.register<JavaExec>("moveOrderingBenchmark") {
+    mainClass = "net.kite.benchmark.MoveOrderingBenchmark"
+    classpath = sourceSets["main"].runtimeClasspath
+}
+
+tasks.register<JavaExec>("searchProfileBenchmark") {
+    mainClass = "net.kite.benchmark.SearchProfileBenchmark"
+    classpath = sourceSets["main"].runtimeClasspath
+    maxHeapSize = "1g"
+}
+
+tasks.register<JavaExec>("searchDriverBenchmark") {
+    mainClass = "net.kite.benchmark.SearchDriverBenchmark"
+    classpath = sourceSets["main"].runtimeClasspath
+}
+
+tasks.register<JavaExec>("tuneMoveOrder") {
+    mainClass = "net.kite.tool.MoveOrderTuner"
+    classpath = sourceSets["main"].runtimeClasspath
+}
+
+tasks.register<JavaExec>("compressOpeningBook") {
+    mainClass = "net.kite.tool.OpeningBookCompressor"
+    classpath = sourceSets["main"].runtimeClasspath
+    maxHeapSize = "4g"
+}
+
+tasks.register<JavaExec>("generateOpeningBook") {
+    mainClass = "net.kite.tool.OpeningBookGenerator"
+    classpath = sourceSets["main"].runtimeClasspath
+    maxHeapSize = "8g"
+}
+
+tasks.register<JavaExec>("verifyOpeningBook") {
+    mainClass = "net.kite.tool.OpeningBookVerifier"
+    classpath = sourceSets["main"].runtimeClasspath
+    args("-")
+}
+
 signing {
     useGpgCmd()
 }
@@ -1,15 +1,22 @@
 package net.kite;
 
 import net.kite.board.Board;
+import net.kite.board.evaluation.parallel.ParallelBoardEvaluation;
+import net.kite.board.evaluation.parallel.ParallelMoveEvaluation;
 import net.kite.board.line.BoardLine;
 import net.kite.board.outcome.BoardOutcome;
 import net.kite.board.player.color.BoardPlayerColor;
 import net.kite.board.score.BoardScore;
-import net.kite.board.score.cache.BoardScoreCache;
+import net.kite.board.score.cache.concurrent.ConcurrentBoardScoreCache;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
 import net.kite.board.score.cache.opening.OpeningBoardScoreCaches;
 import net.kite.skill.level.SkillLevel;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -42,14 +49,32 @@ public class Kite {
 	
 	private final int[] moveScores = new int[BOARD_WIDTH];
 	
-	private Kite() {
-		BoardScoreCache boardScoreCache = new BoardScoreCache();
+	private final ScoreCacheSize scoreCacheSize;
+	
+	private final SearchProfile searchProfile;
+	
+	private final PackedBoardScoreCache scoreCache;
+	
+	private PackedBoardScoreCache sharedScoreCache;
+	
+	private OpeningBook openingBook = OpeningBook.builtIn();
+	
+	private ParallelBoardEvaluation parallelBoardEvaluation;
+	private ParallelMoveEvaluation parallelMoveEvaluation;
+	
+	private Kite(PackedBoardScoreCache scoreCache, ScoreCacheSize scoreCacheSize, PackedBoardScoreCache sharedScoreCache, SearchProfile searchProfile) {
+		this.board = new Board(scoreCache);
+		this.scoreCache = scoreCache;
+		this.scoreCacheSize = scoreCacheSize;
+		this.sharedScoreCache = sharedScoreCache;
+		this.searchProfile = searchProfile;
 		
-		this.board = new Board(boardScoreCache);
+		board.setSearchParameters(searchProfile.getMinimalChildCacheLookupDepth(), searchProfile.boardSearchDriver());
 		
 		OpeningBoardScoreCaches.ensureDefaultIsLoaded(null);
 		
-		board.evaluate();
+		// without the opening book evaluating the empty board takes very long
+		if(OpeningBoardScoreCaches.DEFAULT.loaded()) board.evaluate();
 	}
 	
 	/**
@@ -251,6 +276,54 @@ public class Kite {
 			}
 		}
 		
+		return randomSkilledMove(minimalScore);
+	}
+	
+	/**
+	 * Evaluates the game state and returns
+	 * a legal move that is chosen according
+	 * to the provided {@code skillLevel} in the
+	 * same way that {@link Kite#skilledMove(SkillLevel)}
+	 * would do but uses up to {@code threadAmount}
+	 * threads to do so.
+	 * Each thread evaluates a different move at a
+	 * time and all threads share the best move score
+	 * found so far, which allows them to stop searching
+	 * moves that can no longer be chosen.
+	 * <p>
+	 * Note that the skill levels {@link SkillLevel#RANDOM}
+	 * and {@link SkillLevel#ADAPTIVE} always use a single
+	 * thread only.
+	 *
+	 * @param skillLevel the skill level that the move should be based on
+	 * @param threadAmount the number of threads to evaluate the moves with
+	 * @return a skill based one-indexed column number to play in (indexed from left to right) or {@code 0} if no legal move
+	 */
+	public synchronized int skilledMove(SkillLevel skillLevel, int threadAmount) {
+		if(threadAmount <= 1) return skilledMove(skillLevel);
+		
+		boolean perfect = skillLevel == SkillLevel.PERFECT || skillLevel == SkillLevel.SUPER_GRANDMASTER;
+		
+		if(perfect) return optimalMove(threadAmount);
+		if(skillLevel == SkillLevel.RANDOM) return randomMove();
+		if(skillLevel == SkillLevel.ADAPTIVE) return adaptiveMove();
+		
+		if(board.over()) return INVALID_MOVE_COLUMN_INDEX;
+		int n = board.playedMoveAmount();
+		
+		int theoreticallyWorstScoreLoss = BoardScore.maximalScoreLoss(n);
+		
+		int maximalScoreLoss = skillLevel.getMaximalScoreLoss();
+		maximalScoreLoss = maximalScoreLoss * theoreticallyWorstScoreLoss / MAXIMAL_MOVE_SCORE_LOSS;
+		
+		ParallelMoveEvaluation parallelMoveEvaluation = parallelMoveEvaluation();
+		int optimalMoveScore = parallelMoveEvaluation.evaluateMoves(board, moveScores, threadAmount, maximalScoreLoss);
+		
+		int minimalScore = optimalMoveScore - maximalScoreLoss;
+		return randomSkilledMove(minimalScore);
+	}
+	
+	private int randomSkilledMove(int minimalScore) {
 		int totalWeight = 0;
 		
 		for(int moveColumnIndex : ORDERED_MOVE_COLUMN_INDICES) {
@@ -363,6 +436,41 @@ public class Kite {
 			}
 		}
 		
+		return randomOptimalMove(optimalMoveScore, n);
+	}
+	
+	/**
+	 * Evaluates the game state and returns
+	 * an optimal move in the same way that
+	 * {@link Kite#optimalMove()} would do
+	 * but uses up to {@code threadAmount}
+	 * threads to do so.
+	 * Each thread evaluates a different move at a
+	 * time and all threads share the best move score
+	 * found so far, which allows them to stop searching
+	 * moves that can no longer be optimal.
+	 *
+	 * @param threadAmount the number of threads to evaluate the moves with
+	 * @return an optimal one-indexed column number to play in (indexed from left to right) or {@code 0} if no legal move
+	 */
+	public synchronized int optimalMove(int threadAmount) {
+		if(threadAmount <= 1) return optimalMove();
+		if(board.over()) return INVALID_MOVE_COLUMN_INDEX;
+		
+		ParallelMoveEvaluation parallelMoveEvaluation = parallelMoveEvaluation();
+		int optimalMoveScore = parallelMoveEvaluation.evaluateMoves(board, moveScores, threadAmount, 0);
+		
+		int n = 0;
+		
+		for(int moveScore : moveScores) {
+			
+			if(moveScore == optimalMoveScore) n++;
+		}
+		
+		return randomOptimalMove(optimalMoveScore, n);
+	}
+	
+	private int randomOptimalMove(int optimalMoveScore, int n) {
 		Random random = ThreadLocalRandom.current();
 		int index = random.nextInt(n);
 		
@@ -523,6 +631,37 @@ public class Kite {
 		return moveScores;
 	}
 	
+	/**
+	 * Evaluates each legal move in the same way
+	 * that {@link Kite#evaluateAllMoves(int[] moveScores)}
+	 * would do but uses up to {@code threadAmount}
+	 * threads to do so.
+	 * Each thread evaluates a different move at a
+	 * time while all threads share a single
+	 * transposition table.
+	 * <p>
+	 * Note that unless this solver was created
+	 * using a {@link SharedScoreCache} the shared
+	 * transposition table is separate from the one
+	 * used by single threaded evaluations and is only
+	 * allocated once a method of this solver is called
+	 * with more than one thread (using the same
+	 * {@link ScoreCacheSize} as the solver's own table).
+	 * At most {@code 7} threads are being used.
+	 *
+	 * @param moveScores the buffer to write move evaluations into
+	 * @param threadAmount the number of threads to evaluate the moves with
+	 * @return move evaluations ({@link Integer#MIN_VALUE} for illegal moves)
+	 */
+	public synchronized int[] evaluateAllMoves(int[] moveScores, int threadAmount) {
+		if(threadAmount <= 1) return evaluateAllMoves(moveScores);
+		
+		ParallelMoveEvaluation parallelMoveEvaluation = parallelMoveEvaluation();
+		parallelMoveEvaluation.evaluateMoves(board, moveScores, threadAmount);
+		
+		return moveScores;
+	}
+	
 	/**
 	 * Evaluates each legal move in the same way
 	 * that ({@link Kite#evaluateMove(int moveColumnIndex)})
@@ -596,6 +735,58 @@ public class Kite {
 		return board.evaluate();
 	}
 	
+	/**
+	 * Evaluates the current game state in the
+	 * same way that {@link Kite#evaluateBoard()}
+	 * would do but uses up to {@code threadAmount}
+	 * threads to do so.
+	 * All threads search the same game state
+	 * using slightly different move orders while
+	 * sharing a single transposition table.
+	 * The calling thread is one of these threads.
+	 * <p>
+	 * Note that unless this solver was created
+	 * using a {@link SharedScoreCache} the shared
+	 * transposition table is separate from the one
+	 * used by single threaded evaluations and is only
+	 * allocated once a method of this solver is called
+	 * with more than one thread (using the same
+	 * {@link ScoreCacheSize} as the solver's own table).
+	 * Using more threads than there are available
+	 * processors will not speed up the evaluation.
+	 *
+	 * @param threadAmount the number of threads to evaluate the game state with
+	 * @return board evaluation
+	 */
+	public synchronized int evaluateBoard(int threadAmount) {
+		if(threadAmount <= 1) return board.evaluate();
+		
+		ParallelBoardEvaluation parallelBoardEvaluation = parallelBoardEvaluation();
+		return parallelBoardEvaluation.evaluate(board, threadAmount);
+	}
+	
+	private ParallelBoardEvaluation parallelBoardEvaluation() {
+		if(parallelBoardEvaluation == null) parallelBoardEvaluation = new ParallelBoardEvaluation(sharedScoreCache());
+		
+		return parallelBoardEvaluation;
+	}
+	
+	private ParallelMoveEvaluation parallelMoveEvaluation() {
+		if(parallelMoveEvaluation == null) parallelMoveEvaluation = new ParallelMoveEvaluation(sharedScoreCache());
+		
+		return parallelMoveEvaluation;
+	}
+	
+	private PackedBoardScoreCache sharedScoreCache() {
+		if(sharedScoreCache == null) {
+			
+			int capacity = scoreCacheSize.entryAmount(ConcurrentBoardScoreCache.ENTRY_BYTE_SIZE);
+			sharedScoreCache = new ConcurrentBoardScoreCache(capacity);
+		}
+		
+		return sharedScoreCache;
+	}
+	
 	/**
 	 * Tests whether a given move is legal.
 	 * A move is legal if the game has not ended yet
@@ -728,6 +919,101 @@ public class Kite {
 		}
 	}
 	
+	/**
+	 * Changes the opening book this solver uses
+	 * to the given {@code openingBook}.
+	 * By default, solvers use the {@link OpeningBook#builtIn()}
+	 * opening book.
+	 * Evaluations that use multiple threads also use
+	 * this opening book in all of their threads.
+	 * <p>
+	 * Note that evaluations of positions early in the game
+	 * can take a very long time if they are not covered
+	 * by the opening book.
+	 *
+	 * @param openingBook the opening book to be used by this solver
+	 */
+	public synchronized void setOpeningBook(OpeningBook openingBook) {
+		this.openingBook = openingBook;
+		
+		board.setOpeningBook(openingBook.boardScoreBook());
+	}
+	
+	/**
+	 * Returns the opening book this solver uses
+	 * (see {@link Kite#setOpeningBook(OpeningBook)}).
+	 *
+	 * @return the solver's opening book
+	 */
+	public synchronized OpeningBook getOpeningBook() {
+		return openingBook;
+	}
+	
+	/**
+	 * Removes all evaluations from the transposition
+	 * table/score cache of this solver (and from the
+	 * table used for evaluations with multiple threads).
+	 * Subsequent evaluations will take as long as if
+	 * this solver had just been created.
+	 * This can for example be used to benchmark the
+	 * solver's raw performance.
+	 * <p>
+	 * If this solver uses a {@link SharedScoreCache},
+	 * the evaluations of all solvers sharing it are
+	 * removed and none of these solvers should be used
+	 * while the score cache is cleared.
+	 */
+	public synchronized void clearScoreCache() {
+		scoreCache.clear();
+		
+		if(sharedScoreCache != null && sharedScoreCache != scoreCache) sharedScoreCache.clear();
+	}
+	
+	/**
+	 * Ages the transposition table/score cache of this
+	 * solver (and the table used for evaluations with
+	 * multiple threads) without removing any evaluations.
+	 * Evaluations stored before the table was aged can
+	 * still be reused but are replaced before any newer
+	 * evaluation once the table runs out of space.
+	 * Aging is cheap and, unlike {@link Kite#clearScoreCache()},
+	 * does not touch the table's memory at all.
+	 * Aging the table whenever a new game is started
+	 * keeps evaluations of old games from taking up
+	 * space that is needed for the current game.
+	 * <p>
+	 * If this solver uses a {@link SharedScoreCache},
+	 * the score cache is aged for all solvers sharing it.
+	 */
+	public synchronized void ageScoreCache() {
+		scoreCache.age();
+		
+		if(sharedScoreCache != null && sharedScoreCache != scoreCache) sharedScoreCache.age();
+	}
+	
+	/**
+	 * Returns statistics about the occupancy and usage
+	 * of the transposition table/score cache of this solver.
+	 * Determining the occupancy requires visiting every
+	 * entry of the table so this method should not
+	 * be called too frequently for large tables.
+	 *
+	 * @return score cache statistics
+	 */
+	public synchronized ScoreCacheStatistics scoreCacheStatistics() {
+		return ScoreCacheStatistics.of(scoreCache);
+	}
+	
+	/**
+	 * Returns the search profile of this solver
+	 * (see {@link Kite#createInstance(SearchProfile)}).
+	 *
+	 * @return the solver's search profile
+	 */
+	public SearchProfile getSearchProfile() {
+		return searchProfile;
+	}
+	
 	/**
 	 * Returns the name of
 	 * the Kite solver.
@@ -758,12 +1044,82 @@ public class Kite {
 		return AUTHOR;
 	}
 	
+	/**
+	 * Memory-maps the opening book from the file at the
+	 * given {@code path} instead of loading the opening book
+	 * that is bundled with Kite into the Java heap.
+	 * The file needs to be created using {@link Kite#saveOpeningBook(Path)}
+	 * (for example once during a build or deployment).
+	 * <p>
+	 * Mapping the opening book is almost instant and saves
+	 * about 32 megabytes of heap memory, additionally multiple
+	 * JVMs on the same machine that map the same file share
+	 * its memory through the page cache of the operating system.
+	 * This method should be called before the first solver
+	 * instance is created (and should not be combined with
+	 * {@link Kite#loadOpeningBookAsynchronously()}), otherwise
+	 * the bundled opening book is loaded first and then
+	 * replaced by the mapped one.
+	 * If the bundled opening book is still being loaded
+	 * asynchronously, this method waits for that loading
+	 * to finish before mapping the file.
+	 *
+	 * @param path the path of the opening book file
+	 * @throws IOException if the file could not be mapped or is not a valid opening book file
+	 */
+	public static void loadOpeningBook(Path path) throws IOException {
+		OpeningBoardScoreCaches.loadDefaultFromFile(path);
+	}
+	
+	/**
+	 * Starts loading the opening book that is bundled with
+	 * Kite on a separate thread and returns immediately.
+	 * The returned future completes once the opening book
+	 * has been loaded, which allows for example a service to
+	 * start up without waiting for the opening book.
+	 * <p>
+	 * Solvers can be created and used while the opening book
+	 * is still being loaded, their evaluations simply do not
+	 * use the opening book until it is loaded.
+	 * Note that without the opening book, evaluating positions
+	 * early in the game can take a very long time, so such
+	 * positions should ideally only be evaluated once the
+	 * future has completed.
+	 * If the opening book has already been loaded (or is
+	 * already being loaded) no new loading is started.
+	 *
+	 * @return a future that completes once the opening book has been loaded
+	 */
+	public static CompletableFuture<Void> loadOpeningBookAsynchronously() {
+		return OpeningBoardScoreCaches.loadDefaultAsynchronously();
+	}
+	
+	/**
+	 * Saves the opening book that is used by all solvers
+	 * (by default the one bundled with Kite) to the file at
+	 * the given {@code path} in a format that can be memory-mapped
+	 * using {@link Kite#loadOpeningBook(Path)}.
+	 * Existing files are overwritten.
+	 * The file is about 32 megabytes large.
+	 *
+	 * @param path the path of the opening book file
+	 * @throws IOException if the file could not be written or the opening book could not be loaded
+	 */
+	public static void saveOpeningBook(Path path) throws IOException {
+		OpeningBoardScoreCaches.saveDefaultToFile(path);
+	}
+	
 	/**
 	 * Creates a new instance of the Kite solver.
 	 * Most of the solver's state is exclusive to one
 	 * instance and is not shared across instances.
 	 * This includes for example the game state and
-	 * the transposition table/score cache.
+	 * the transposition table/score cache (use
+	 * {@link Kite#createInstance(SharedScoreCache)} to
+	 * create solvers that share a score cache).
+	 * The score cache has the {@link ScoreCacheSize#DEFAULT}
+	 * size, use {@link Kite#createInstance(ScoreCacheSize)}
+	 * to choose a different size.
 	 * Some state, for example the opening book, only
 	 * exists once and <b>is</b> shared across solvers.
 	 * Solver instances are thread-safe by not allowing
@@ -771,12 +1127,104 @@ public class Kite {
 	 * If you are creating the first (or one of the first)
 	 * solver instances some additional time might be
 	 * spent on warming up the solver and initializing
-	 * solver-shared state, like the opening book.
+	 * solver-shared state, like the opening book
+	 * (see {@link Kite#loadOpeningBookAsynchronously()} to
+	 * avoid waiting for the opening book).
 	 *
 	 * @return a newly created Kite solver instance
 	 */
 	public static Kite createInstance() {
-		return new Kite();
+		return createInstance(SearchProfile.BOOK_BACKED_INTERACTIVE);
+	}
+	
+	/**
+	 * Creates a new instance of the Kite solver
+	 * just like {@link Kite#createInstance()} does
+	 * but with a transposition table/score cache
+	 * of the given {@code scoreCacheSize}.
+	 * <p>
+	 * A larger score cache mostly speeds up the
+	 * evaluation of positions early in the game
+	 * that are not covered by the opening book.
+	 * For example {@code ScoreCacheSize.ofMegabytes(256)}
+	 * creates a solver whose score cache uses at most
+	 * 256 megabytes of memory.
+	 *
+	 * @param scoreCacheSize the size of the new solver's score cache
+	 * @return a newly created Kite solver instance
+	 */
+	public static Kite createInstance(ScoreCacheSize scoreCacheSize) {
+		return createInstance(SearchProfile.BOOK_BACKED_INTERACTIVE.withScoreCacheSize(scoreCacheSize));
+	}
+	
+	/**
+	 * Creates a new instance of the Kite solver
+	 * just like {@link Kite#createInstance()} does
+	 * but with the given {@code searchProfile}, which
+	 * also determines the size of the solver's
+	 * transposition table/score cache.
+	 * <p>
+	 * For example {@link SearchProfile#DEEP_COLD_SOLVE}
+	 * creates a solver that is suited for evaluating
+	 * positions early in the game without an opening book.
+	 *
+	 * @param searchProfile the search parameters of the new solver
+	 * @return a newly created Kite solver instance
+	 */
+	public static Kite createInstance(SearchProfile searchProfile) {
+		ScoreCacheSize scoreCacheSize = searchProfile.getScoreCacheSize();
+		
+		int capacity = scoreCacheSize.entryAmount(LocalBoardScoreCache.ENTRY_BYTE_SIZE);
+		LocalBoardScoreCache scoreCache = new LocalBoardScoreCache(capacity);
+		
+		return new Kite(scoreCache, scoreCacheSize, null, searchProfile);
+	}
+	
+	/**
+	 * Creates a new instance of the Kite solver
+	 * that uses the given {@code sharedScoreCache}
+	 * as its transposition table/score cache.
+	 * Apart from the score cache, the solver's state is
+	 * exclusive to the new instance just like with
+	 * solvers created by {@link Kite#createInstance()}.
+	 * <p>
+	 * All solvers created with the same shared score
+	 * cache read and write evaluations from and into the
+	 * same table, which allows many solvers to use one
+	 * large table instead of a small table per solver.
+	 * The shared score cache is also used for evaluations
+	 * that use multiple threads (see for example
+	 * {@link Kite#evaluateBoard(int)}).
+	 * Solver instances are still thread-safe by not
+	 * allowing multiple threads to use them in parallel
+	 * but different solvers sharing a score cache can be
+	 * used in parallel.
+	 *
+	 * @param sharedScoreCache the score cache to be used by the new solver
+	 * @return a newly created Kite solver instance
+	 * @throws IllegalStateException if the shared score cache has already been released
+	 */
+	public static Kite createInstance(SharedScoreCache sharedScoreCache) {
+		return createInstance(sharedScoreCache, SearchProfile.BOOK_BACKED_INTERACTIVE);
+	}
+	
+	/**
+	 * Creates a new instance of the Kite solver
+	 * just like {@link Kite#createInstance(SharedScoreCache)}
+	 * does but with the given {@code searchProfile}.
+	 * The size of the profile's score cache is ignored
+	 * as the solver uses the shared score cache.
+	 *
+	 * @param sharedScoreCache the score cache to be used by the new solver
+	 * @param searchProfile the search parameters of the new solver
+	 * @return a newly created Kite solver instance
+	 * @throws IllegalStateException if the shared score cache has already been released
+	 */
+	public static Kite createInstance(SharedScoreCache sharedScoreCache, SearchProfile searchProfile) {
+		PackedBoardScoreCache scoreCache = sharedScoreCache.boardScoreCache();
+		ScoreCacheSize scoreCacheSize = sharedScoreCache.size();
+		
+		return new Kite(scoreCache, scoreCacheSize, scoreCache, searchProfile);
 	}
 	
 }
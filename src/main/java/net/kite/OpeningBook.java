@@ -0,0 +1,127 @@
+package net.kite;
+
+import net.kite.board.score.book.BoardScoreBook;
+import net.kite.board.score.book.chained.ChainedBoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBook;
+import net.kite.board.score.book.disabled.DisabledBoardScoreBook;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCache;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCaches;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An opening book that contains precomputed evaluations
+ * of positions early in the game.
+ * Each solver uses the {@link OpeningBook#builtIn()} opening
+ * book by default, use {@link Kite#setOpeningBook(OpeningBook)}
+ * to choose a different opening book for a solver.
+ * <p>
+ * Besides the opening book that is bundled with Kite, solvers
+ * can use no opening book at all ({@link OpeningBook#disabled()}),
+ * an opening book loaded from a file ({@link OpeningBook#load(Path)})
+ * or multiple opening books combined ({@link OpeningBook#chain(OpeningBook...)}).
+ */
+public class OpeningBook {
+	
+	private static final OpeningBook BUILT_IN = new OpeningBook(OpeningBoardScoreCaches.DEFAULT);
+	private static final OpeningBook DISABLED = new OpeningBook(DisabledBoardScoreBook.INSTANCE);
+	
+	private final BoardScoreBook boardScoreBook;
+	
+	private OpeningBook(BoardScoreBook boardScoreBook) {
+		this.boardScoreBook = boardScoreBook;
+	}
+	
+	BoardScoreBook boardScoreBook() {
+		return boardScoreBook;
+	}
+	
+	/**
+	 * Returns the largest number of played moves
+	 * a position in this opening book may have.
+	 * Positions with more played moves are never
+	 * looked up in this opening book.
+	 *
+	 * @return the maximal depth of this opening book or -1 if it does not contain any position
+	 */
+	public int getMaximalDepth() {
+		return boardScoreBook.maximalDepth();
+	}
+	
+	/**
+	 * Returns the opening book that is bundled with Kite,
+	 * which contains all positions with up to 14 played moves.
+	 * This opening book is only stored once no matter
+	 * how many solvers use it.
+	 *
+	 * @return the built-in opening book
+	 */
+	public static OpeningBook builtIn() {
+		return BUILT_IN;
+	}
+	
+	/**
+	 * Returns an opening book that does not contain
+	 * any position.
+	 * Solvers using it never spend any time on looking
+	 * up positions, which is for example useful for
+	 * benchmarking the search itself.
+	 *
+	 * @return a disabled opening book
+	 */
+	public static OpeningBook disabled() {
+		return DISABLED;
+	}
+	
+	/**
+	 * Memory-maps the opening book file at the given {@code path}.
+	 * Both the format written by {@link Kite#saveOpeningBook(Path)}
+	 * and the compressed format written by the {@code compressOpeningBook}
+	 * task are supported, the format is detected from the file itself.
+	 * The opening book may contain positions with more
+	 * played moves than the built-in opening book.
+	 *
+	 * @param path the path of the opening book file
+	 * @return the loaded opening book
+	 * @throws IOException if the file could not be mapped or is not a valid opening book file
+	 */
+	public static OpeningBook load(Path path) throws IOException {
+		BoardScoreBook boardScoreBook;
+		
+		if(CompressedBoardScoreBook.compressedFile(path)) {
+			
+			boardScoreBook = CompressedBoardScoreBook.fromFile(path);
+			
+		} else {
+			
+			boardScoreBook = OpeningBoardScoreCache.fromFile(path);
+		}
+		
+		return new OpeningBook(boardScoreBook);
+	}
+	
+	/**
+	 * Combines multiple opening books into one.
+	 * Positions are looked up in the given opening books
+	 * in order and the first evaluation that is found is used,
+	 * for example {@code OpeningBook.chain(OpeningBook.builtIn(), deeperOpeningBook)}
+	 * complements the built-in opening book with a deeper one.
+	 *
+	 * @param openingBooks the opening books to be combined
+	 * @return the combined opening book
+	 */
+	public static OpeningBook chain(OpeningBook... openingBooks) {
+		int n = openingBooks.length;
+		BoardScoreBook[] boardScoreBooks = new BoardScoreBook[n];
+		
+		for(int i = 0; i < n; i++) {
+			
+			boardScoreBooks[i] = openingBooks[i].boardScoreBook;
+		}
+		
+		ChainedBoardScoreBook boardScoreBook = new ChainedBoardScoreBook(boardScoreBooks);
+		return new OpeningBook(boardScoreBook);
+	}
+	
+}
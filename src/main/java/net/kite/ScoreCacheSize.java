@@ -0,0 +1,134 @@
+package net.kite;
+
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+/**
+ * The size of a transposition table (score cache).
+ * A size can either be given as an exact number
+ * of entries using {@link ScoreCacheSize#ofEntries(int)},
+ * as a memory budget using {@link ScoreCacheSize#ofMegabytes(int)}
+ * or be derived from the maximal amount of memory the
+ * JVM may use using {@link ScoreCacheSize#automatic()}.
+ * Pass a size to {@link Kite#createInstance(ScoreCacheSize)}
+ * or {@link SharedScoreCache#create(ScoreCacheSize)}.
+ * <p>
+ * Larger score caches need to evaluate fewer positions
+ * when solving hard positions (like ones early in the game)
+ * but take longer to allocate and use more memory.
+ * The number of entries of a score cache is
+ * always a power of two.
+ */
+public class ScoreCacheSize {
+	
+	/**
+	 * The smallest number of entries
+	 * a score cache can have (2048).
+	 */
+	public static final int MINIMAL_ENTRY_AMOUNT = PackedBoardScoreCache.MINIMAL_CAPACITY;
+	
+	/**
+	 * The largest number of entries
+	 * a score cache can have.
+	 */
+	public static final int MAXIMAL_ENTRY_AMOUNT = 1073741824;
+	
+	/**
+	 * The size of the score cache used by solvers
+	 * created without specifying a size
+	 * (1048576 entries).
+	 */
+	public static final ScoreCacheSize DEFAULT = new ScoreCacheSize(1048576, 0);
+	
+	private static final long MEGABYTE_BYTE_AMOUNT = 1048576;
+	
+	// the part of the maximal memory an automatically sized score cache may use
+	private static final int AUTOMATIC_MEMORY_DIVISOR = 4;
+	
+	private final int entryAmount;
+	private final long byteAmount;
+	
+	private ScoreCacheSize(int entryAmount, long byteAmount) {
+		this.entryAmount = entryAmount;
+		this.byteAmount = byteAmount;
+	}
+	
+	// returns the number of entries of a score cache of this
+	// size whose entries each take up entryByteSize bytes
+	int entryAmount(int entryByteSize) {
+		if(entryAmount != 0) return entryAmount;
+		
+		long maximalEntryAmount = byteAmount / entryByteSize;
+		int entryAmount = MINIMAL_ENTRY_AMOUNT;
+		
+		while(entryAmount < MAXIMAL_ENTRY_AMOUNT && ((long) entryAmount << 1) <= maximalEntryAmount) {
+			
+			entryAmount <<= 1;
+		}
+		
+		return entryAmount;
+	}
+	
+	@Override
+	public String toString() {
+		if(entryAmount != 0) return String.format("%d entries", entryAmount);
+		
+		return String.format("%d bytes", byteAmount);
+	}
+	
+	/**
+	 * Returns the size of a score cache
+	 * that has exactly {@code entryAmount}
+	 * entries.
+	 *
+	 * @param entryAmount the number of entries, a power of two between {@link ScoreCacheSize#MINIMAL_ENTRY_AMOUNT} and {@link ScoreCacheSize#MAXIMAL_ENTRY_AMOUNT}
+	 * @return the score cache size
+	 * @throws IllegalArgumentException if the number of entries is not a power of two or out of range
+	 */
+	public static ScoreCacheSize ofEntries(int entryAmount) {
+		if(entryAmount < MINIMAL_ENTRY_AMOUNT || entryAmount > MAXIMAL_ENTRY_AMOUNT || Integer.bitCount(entryAmount) != 1) {
+			
+			String errorMessage = String.format("The number of score cache entries must be a power of two between %d and %d but was %d!", MINIMAL_ENTRY_AMOUNT, MAXIMAL_ENTRY_AMOUNT, entryAmount);
+			throw new IllegalArgumentException(errorMessage);
+		}
+		
+		return new ScoreCacheSize(entryAmount, 0);
+	}
+	
+	/**
+	 * Returns the size of the largest score
+	 * cache that uses at most {@code megabytes}
+	 * megabytes of memory.
+	 * Note that a score cache will never have less than
+	 * {@link ScoreCacheSize#MINIMAL_ENTRY_AMOUNT} entries
+	 * no matter how small the memory budget is.
+	 *
+	 * @param megabytes the memory budget in megabytes (mebibytes)
+	 * @return the score cache size
+	 * @throws IllegalArgumentException if the memory budget is not positive
+	 */
+	public static ScoreCacheSize ofMegabytes(int megabytes) {
+		if(megabytes <= 0) {
+			
+			String errorMessage = String.format("The score cache memory budget must be positive but was %d megabytes!", megabytes);
+			throw new IllegalArgumentException(errorMessage);
+		}
+		
+		return new ScoreCacheSize(0, megabytes * MEGABYTE_BYTE_AMOUNT);
+	}
+	
+	/**
+	 * Returns the size of the largest score
+	 * cache that uses at most a quarter of
+	 * the maximal amount of memory the
+	 * JVM may use (see {@link Runtime#maxMemory()}).
+	 *
+	 * @return the score cache size
+	 */
+	public static ScoreCacheSize automatic() {
+		long maximalByteAmount = Runtime.getRuntime().maxMemory();
+		if(maximalByteAmount == Long.MAX_VALUE) return DEFAULT;
+		
+		return new ScoreCacheSize(0, maximalByteAmount / AUTOMATIC_MEMORY_DIVISOR);
+	}
+	
+}
@@ -0,0 +1,145 @@
+package net.kite;
+
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+/**
+ * A snapshot of the occupancy and usage statistics of
+ * a transposition table (score cache).
+ * Statistics can be obtained using {@link Kite#scoreCacheStatistics()}
+ * or {@link SharedScoreCache#statistics()} and can help with
+ * choosing a suitable {@link ScoreCacheSize} and with deciding
+ * how often to age a score cache.
+ * <p>
+ * The probe and overwrite counts start at zero when the score
+ * cache is created or cleared.
+ * Probes and overwrites are counted by each solver on its own
+ * and only added to the statistics of the score cache once an
+ * evaluation is over, so the counts never include the probes
+ * and overwrites of evaluations that are still running.
+ */
+public class ScoreCacheStatistics {
+	
+	private final int capacity;
+	
+	private final long filledEntryAmount;
+	private final long currentGenerationEntryAmount;
+	
+	private final long hitAmount;
+	private final long missAmount;
+	private final long overwriteAmount;
+	
+	private ScoreCacheStatistics(int capacity, long filledEntryAmount, long currentGenerationEntryAmount, long hitAmount, long missAmount, long overwriteAmount) {
+		this.capacity = capacity;
+		this.filledEntryAmount = filledEntryAmount;
+		this.currentGenerationEntryAmount = currentGenerationEntryAmount;
+		this.hitAmount = hitAmount;
+		this.missAmount = missAmount;
+		this.overwriteAmount = overwriteAmount;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d/%d entries filled (%.1f%%, %d of the current generation), %d hits, %d misses (%.1f%% hit ratio), %d overwrites", filledEntryAmount, capacity, 100 * getFillRatio(), currentGenerationEntryAmount, hitAmount, missAmount, 100 * getHitRatio(), overwriteAmount);
+	}
+	
+	/**
+	 * Returns the number of entries
+	 * of the score cache.
+	 *
+	 * @return the score cache's capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Returns the number of entries of the
+	 * score cache that hold an evaluation
+	 * (of any generation).
+	 *
+	 * @return the number of filled entries
+	 */
+	public long getFilledEntryAmount() {
+		return filledEntryAmount;
+	}
+	
+	/**
+	 * Returns the number of entries of the
+	 * score cache that hold an evaluation of
+	 * the current generation (that were stored
+	 * since the score cache was last aged).
+	 *
+	 * @return the number of filled entries of the current generation
+	 */
+	public long getCurrentGenerationEntryAmount() {
+		return currentGenerationEntryAmount;
+	}
+	
+	/**
+	 * Returns the ratio of filled entries
+	 * to all entries of the score cache.
+	 *
+	 * @return the fill ratio between zero and one
+	 */
+	public float getFillRatio() {
+		return (float) filledEntryAmount / capacity;
+	}
+	
+	/**
+	 * Returns how many times an evaluation that was
+	 * looked up was found in the score cache.
+	 *
+	 * @return the number of probe hits
+	 */
+	public long getHitAmount() {
+		return hitAmount;
+	}
+	
+	/**
+	 * Returns how many times an evaluation that was
+	 * looked up was not found in the score cache.
+	 *
+	 * @return the number of probe misses
+	 */
+	public long getMissAmount() {
+		return missAmount;
+	}
+	
+	/**
+	 * Returns the ratio of probe hits to all probes
+	 * or zero if the score cache was never probed.
+	 *
+	 * @return the hit ratio between zero and one
+	 */
+	public float getHitRatio() {
+		long probeAmount = hitAmount + missAmount;
+		if(probeAmount == 0) return 0;
+		
+		return (float) hitAmount / probeAmount;
+	}
+	
+	/**
+	 * Returns how many times an evaluation
+	 * replaced the evaluation of a different
+	 * game state in the score cache.
+	 *
+	 * @return the number of overwrites
+	 */
+	public long getOverwriteAmount() {
+		return overwriteAmount;
+	}
+	
+	static ScoreCacheStatistics of(PackedBoardScoreCache scoreCache) {
+		int capacity = scoreCache.getCapacity();
+		
+		long filledEntryAmount = scoreCache.filledEntryAmount(false);
+		long currentGenerationEntryAmount = scoreCache.filledEntryAmount(true);
+		
+		long hitAmount = scoreCache.getHitAmount();
+		long missAmount = scoreCache.getMissAmount();
+		long overwriteAmount = scoreCache.getOverwriteAmount();
+		
+		return new ScoreCacheStatistics(capacity, filledEntryAmount, currentGenerationEntryAmount, hitAmount, missAmount, overwriteAmount);
+	}
+	
+}
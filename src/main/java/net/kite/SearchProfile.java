@@ -0,0 +1,177 @@
+package net.kite;
+
+import net.kite.board.search.driver.BoardSearchDriver;
+import net.kite.board.search.driver.aspiration.AspirationWindowBoardSearchDriver;
+import net.kite.board.search.driver.bisection.BisectionBoardSearchDriver;
+import net.kite.board.search.driver.mtdf.MtdfBoardSearchDriver;
+import net.kite.search.driver.SearchDriver;
+
+/**
+ * A set of search parameters of a solver.
+ * Different parameters are best depending on whether
+ * the solver mostly evaluates positions shortly after
+ * the end of its opening book (like a bot playing games)
+ * or hard positions without any opening book (like
+ * an offline solver).
+ * Pass a profile to {@link Kite#createInstance(SearchProfile)}
+ * or {@link Kite#createInstance(SharedScoreCache, SearchProfile)}.
+ * Solvers created without a profile use the
+ * {@link SearchProfile#BOOK_BACKED_INTERACTIVE} profile.
+ * <p>
+ * The search parameters never change the results
+ * of any evaluation, only how long they take.
+ */
+public class SearchProfile {
+	
+	/**
+	 * The profile of solvers that use an opening book and
+	 * evaluate positions with many played moves, for example
+	 * to play games. It uses a score cache of the
+	 * {@link ScoreCacheSize#DEFAULT} size.
+	 */
+	public static final SearchProfile BOOK_BACKED_INTERACTIVE = new SearchProfile("book-backed interactive", ScoreCacheSize.DEFAULT, 13, 42, SearchDriver.BISECTION);
+	
+	/**
+	 * The profile of solvers that evaluate positions with
+	 * few played moves without an opening book, for example
+	 * to generate opening books. Its parameters were tuned
+	 * for evaluating the empty board, which its score cache
+	 * of 16777216 entries (128 megabytes) is large enough for.
+	 */
+	public static final SearchProfile DEEP_COLD_SOLVE = new SearchProfile("deep cold solve", ScoreCacheSize.ofEntries(16777216), 13, 11, SearchDriver.BISECTION);
+	
+	private static final String CUSTOM_NAME = "custom";
+	
+	private final String name;
+	
+	private final ScoreCacheSize scoreCacheSize;
+	
+	private final int minimalChildCacheLookupDepth;
+	private final int maximalDisabledIterativeDeepeningScoreRange;
+	
+	private final SearchDriver searchDriver;
+	
+	private SearchProfile(String name, ScoreCacheSize scoreCacheSize, int minimalChildCacheLookupDepth, int maximalDisabledIterativeDeepeningScoreRange, SearchDriver searchDriver) {
+		this.name = name;
+		this.scoreCacheSize = scoreCacheSize;
+		this.minimalChildCacheLookupDepth = minimalChildCacheLookupDepth;
+		this.maximalDisabledIterativeDeepeningScoreRange = maximalDisabledIterativeDeepeningScoreRange;
+		this.searchDriver = searchDriver;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s (%s, child lookups after %d moves, %s driver, bisection up to a score range of %d)", name, scoreCacheSize, minimalChildCacheLookupDepth, searchDriver, maximalDisabledIterativeDeepeningScoreRange);
+	}
+	
+	// the driver of the solver's board
+	BoardSearchDriver boardSearchDriver() {
+		return switch(searchDriver) {
+			
+			case BISECTION -> new BisectionBoardSearchDriver(maximalDisabledIterativeDeepeningScoreRange);
+			case MTDF -> MtdfBoardSearchDriver.INSTANCE;
+			case ASPIRATION_WINDOW -> AspirationWindowBoardSearchDriver.INSTANCE;
+		};
+	}
+	
+	/**
+	 * Returns a custom profile with the same
+	 * search parameters as this profile but
+	 * with a score cache of the given size.
+	 *
+	 * @param scoreCacheSize the size of the score cache
+	 * @return the search profile
+	 */
+	public SearchProfile withScoreCacheSize(ScoreCacheSize scoreCacheSize) {
+		return new SearchProfile(CUSTOM_NAME, scoreCacheSize, minimalChildCacheLookupDepth, maximalDisabledIterativeDeepeningScoreRange, searchDriver);
+	}
+	
+	/**
+	 * Returns a custom profile with the same
+	 * search parameters as this profile but
+	 * with the given search driver.
+	 *
+	 * @param searchDriver the search driver
+	 * @return the search profile
+	 */
+	public SearchProfile withSearchDriver(SearchDriver searchDriver) {
+		return new SearchProfile(CUSTOM_NAME, scoreCacheSize, minimalChildCacheLookupDepth, maximalDisabledIterativeDeepeningScoreRange, searchDriver);
+	}
+	
+	/**
+	 * Returns the name of this profile, which is
+	 * "custom" for all profiles that are not one
+	 * of the predefined profiles (including the
+	 * ones derived from a predefined profile).
+	 *
+	 * @return the profile's name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns the size of the score cache
+	 * of solvers using this profile.
+	 *
+	 * @return the score cache size
+	 */
+	public ScoreCacheSize getScoreCacheSize() {
+		return scoreCacheSize;
+	}
+	
+	/**
+	 * Returns the number of played moves after which
+	 * the score cache entries of all following positions
+	 * are looked up before any of them is searched.
+	 *
+	 * @return the minimal child cache lookup depth
+	 */
+	public int getMinimalChildCacheLookupDepth() {
+		return minimalChildCacheLookupDepth;
+	}
+	
+	/**
+	 * Returns the largest range of possible scores that
+	 * is simply bisected when evaluating a position.
+	 * Larger ranges are split closer to a draw
+	 * as most positions are close to a draw.
+	 * Only the {@link SearchDriver#BISECTION}
+	 * driver uses this parameter.
+	 *
+	 * @return the maximal disabled iterative deepening score range
+	 */
+	public int getMaximalDisabledIterativeDeepeningScoreRange() {
+		return maximalDisabledIterativeDeepeningScoreRange;
+	}
+	
+	/**
+	 * Returns the way solvers using this profile
+	 * narrow down the score of a position.
+	 *
+	 * @return the search driver
+	 */
+	public SearchDriver getSearchDriver() {
+		return searchDriver;
+	}
+	
+	/**
+	 * Returns a profile with the given search parameters.
+	 *
+	 * @param scoreCacheSize the size of the score cache
+	 * @param minimalChildCacheLookupDepth the number of played moves after which the score cache entries of all following positions are looked up first
+	 * @param maximalDisabledIterativeDeepeningScoreRange the largest range of possible scores that is simply bisected
+	 * @return the search profile
+	 * @throws IllegalArgumentException if a search parameter is negative
+	 */
+	public static SearchProfile custom(ScoreCacheSize scoreCacheSize, int minimalChildCacheLookupDepth, int maximalDisabledIterativeDeepeningScoreRange) {
+		if(minimalChildCacheLookupDepth < 0 || maximalDisabledIterativeDeepeningScoreRange < 0) {
+			
+			String errorMessage = String.format("The search parameters must not be negative but were %d and %d!", minimalChildCacheLookupDepth, maximalDisabledIterativeDeepeningScoreRange);
+			throw new IllegalArgumentException(errorMessage);
+		}
+		
+		return new SearchProfile(CUSTOM_NAME, scoreCacheSize, minimalChildCacheLookupDepth, maximalDisabledIterativeDeepeningScoreRange, SearchDriver.BISECTION);
+	}
+	
+}
@@ -0,0 +1,248 @@
+package net.kite;
+
+import net.kite.board.score.cache.concurrent.ConcurrentBoardScoreCache;
+import net.kite.board.score.cache.direct.DirectBoardScoreCache;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+import net.kite.board.score.cache.snapshot.BoardScoreCacheSnapshots;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A transposition table (score cache) that
+ * can be shared by multiple {@link Kite} solvers.
+ * Use {@link SharedScoreCache#create()} or
+ * {@link SharedScoreCache#create(ScoreCacheSize)} to obtain
+ * a newly created shared score cache and pass it
+ * to {@link Kite#createInstance(SharedScoreCache)}
+ * for each solver that should use it.
+ * <p>
+ * Solvers that share a score cache can reuse
+ * the evaluations of each other, which especially
+ * helps when the solvers analyze similar games.
+ * A shared score cache can be accessed by
+ * multiple threads in parallel without
+ * any locking.
+ * <p>
+ * Very large shared score caches can be stored outside
+ * of the Java heap using {@link SharedScoreCache#createOffHeap(ScoreCacheSize)}
+ * so that they do not increase garbage collection pauses.
+ * <p>
+ * The contents of a shared score cache can be saved to a file
+ * using {@link SharedScoreCache#save(Path)} and be loaded again
+ * (for example after a restart) using {@link SharedScoreCache#load(Path)}
+ * or {@link SharedScoreCache#loadOffHeap(Path)}.
+ */
+public class SharedScoreCache {
+	
+	private final ScoreCacheSize size;
+	
+	private final PackedBoardScoreCache boardScoreCache;
+	
+	private SharedScoreCache(ScoreCacheSize size, PackedBoardScoreCache boardScoreCache) {
+		this.size = size;
+		this.boardScoreCache = boardScoreCache;
+	}
+	
+	ScoreCacheSize size() {
+		return size;
+	}
+	
+	PackedBoardScoreCache boardScoreCache() {
+		if(released()) throw new IllegalStateException("The shared score cache has already been released!");
+		
+		return boardScoreCache;
+	}
+	
+	/**
+	 * Releases the memory of this shared score cache
+	 * if it was created using {@link SharedScoreCache#createOffHeap(ScoreCacheSize)}.
+	 * The off-heap memory is freed as soon as the garbage
+	 * collector notices that it is no longer referenced,
+	 * which does not require the garbage collector to
+	 * visit the memory itself.
+	 * <p>
+	 * Solvers that use this score cache must no longer be
+	 * used after it has been released and no new solvers
+	 * can be created with it.
+	 * Releasing a shared score cache that is stored on
+	 * the Java heap has no effect.
+	 */
+	public void release() {
+		if(boardScoreCache instanceof DirectBoardScoreCache directBoardScoreCache) directBoardScoreCache.release();
+	}
+	
+	/**
+	 * Returns whether this shared score cache has been released
+	 * using {@link SharedScoreCache#release()}.
+	 * Shared score caches stored on the Java heap are
+	 * never released.
+	 *
+	 * @return whether the score cache has been released
+	 */
+	public boolean released() {
+		if(boardScoreCache instanceof DirectBoardScoreCache directBoardScoreCache) return directBoardScoreCache.released();
+		
+		return false;
+	}
+	
+	/**
+	 * Removes all evaluations from this shared score cache
+	 * and resets its statistics.
+	 * None of the solvers using this score cache
+	 * should be used while it is cleared.
+	 *
+	 * @throws IllegalStateException if the shared score cache has already been released
+	 */
+	public void clear() {
+		boardScoreCache().clear();
+	}
+	
+	/**
+	 * Ages this shared score cache without removing any
+	 * evaluations (see {@link Kite#ageScoreCache()}).
+	 * Evaluations stored before the score cache was aged
+	 * can still be reused but are replaced before any
+	 * newer evaluation.
+	 * Unlike clearing, aging is allowed while solvers
+	 * using this score cache are evaluating positions.
+	 *
+	 * @throws IllegalStateException if the shared score cache has already been released
+	 */
+	public void age() {
+		boardScoreCache().age();
+	}
+	
+	/**
+	 * Returns statistics about the occupancy
+	 * and usage of this shared score cache.
+	 * Determining the occupancy requires visiting
+	 * every entry of the score cache so this method
+	 * should not be called too frequently for large
+	 * score caches.
+	 *
+	 * @return score cache statistics
+	 * @throws IllegalStateException if the shared score cache has already been released
+	 */
+	public ScoreCacheStatistics statistics() {
+		return ScoreCacheStatistics.of(boardScoreCache());
+	}
+	
+	/**
+	 * Saves a snapshot of all entries of this shared score
+	 * cache to the file at the given {@code path}.
+	 * Existing files are overwritten.
+	 * The snapshot file is about as large as the score
+	 * cache itself and can only be loaded by versions of
+	 * Kite that evaluate and hash boards in the same way.
+	 * <p>
+	 * The score cache should not be used by any solver
+	 * while it is saved as evaluations that finish
+	 * during the save might only be saved partially.
+	 *
+	 * @param path the path of the snapshot file
+	 * @throws IOException if the snapshot could not be written
+	 * @throws IllegalStateException if the shared score cache has already been released
+	 */
+	public void save(Path path) throws IOException {
+		BoardScoreCacheSnapshots.save(boardScoreCache(), path);
+	}
+	
+	/**
+	 * Creates a new shared score cache of the
+	 * {@link ScoreCacheSize#DEFAULT} size
+	 * that is initially empty.
+	 *
+	 * @return a newly created shared score cache
+	 */
+	public static SharedScoreCache create() {
+		return create(ScoreCacheSize.DEFAULT);
+	}
+	
+	/**
+	 * Creates a new shared score cache of the
+	 * given {@code size} that is initially empty.
+	 * As a shared score cache is usually used by
+	 * multiple solvers it typically makes sense to
+	 * choose a larger size than for a single solver.
+	 *
+	 * @param size the size of the new score cache
+	 * @return a newly created shared score cache
+	 */
+	public static SharedScoreCache create(ScoreCacheSize size) {
+		int capacity = size.entryAmount(ConcurrentBoardScoreCache.ENTRY_BYTE_SIZE);
+		ConcurrentBoardScoreCache boardScoreCache = new ConcurrentBoardScoreCache(capacity);
+		
+		return new SharedScoreCache(size, boardScoreCache);
+	}
+	
+	/**
+	 * Creates a new shared score cache of the given
+	 * {@code size} whose entries are stored in direct
+	 * memory outside of the Java heap.
+	 * Such score caches can be many gigabytes large without
+	 * increasing the time the garbage collector spends on
+	 * marking and copying objects.
+	 * Apart from their memory, off-heap score caches behave
+	 * like score caches created by {@link SharedScoreCache#create(ScoreCacheSize)}.
+	 * <p>
+	 * The off-heap memory can be released explicitly
+	 * using {@link SharedScoreCache#release()} once the score
+	 * cache is no longer needed.
+	 * Note that the amount of direct memory the JVM may use
+	 * is limited (see the {@code -XX:MaxDirectMemorySize}
+	 * option) and defaults to the maximal heap size.
+	 *
+	 * @param size the size of the new score cache
+	 * @return a newly created off-heap shared score cache
+	 */
+	public static SharedScoreCache createOffHeap(ScoreCacheSize size) {
+		int capacity = size.entryAmount(DirectBoardScoreCache.ENTRY_BYTE_SIZE);
+		DirectBoardScoreCache boardScoreCache = new DirectBoardScoreCache(capacity);
+		
+		return new SharedScoreCache(size, boardScoreCache);
+	}
+	
+	/**
+	 * Creates a new shared score cache (on the Java heap)
+	 * that contains the entries of the snapshot file at the
+	 * given {@code path} (see {@link SharedScoreCache#save(Path)}).
+	 * The new score cache has the same size as the score
+	 * cache the snapshot was taken of.
+	 *
+	 * @param path the path of the snapshot file
+	 * @return a newly created shared score cache
+	 * @throws IOException if the snapshot could not be read or was created by an incompatible version of Kite
+	 */
+	public static SharedScoreCache load(Path path) throws IOException {
+		ConcurrentBoardScoreCache boardScoreCache = BoardScoreCacheSnapshots.load(path, ConcurrentBoardScoreCache::new);
+		ScoreCacheSize size = ScoreCacheSize.ofEntries(boardScoreCache.getCapacity());
+		
+		return new SharedScoreCache(size, boardScoreCache);
+	}
+	
+	/**
+	 * Creates a new off-heap shared score cache (see
+	 * {@link SharedScoreCache#createOffHeap(ScoreCacheSize)})
+	 * that contains the entries of the snapshot file at
+	 * the given {@code path}.
+	 * The snapshot file is memory-mapped instead of being
+	 * read which makes loading almost instant no matter how
+	 * large the score cache is, entries are only read from
+	 * the file once they are needed.
+	 * Changes to the score cache are never written back
+	 * to the snapshot file, the file still needs to be
+	 * writable however.
+	 *
+	 * @param path the path of the snapshot file
+	 * @return a newly created off-heap shared score cache
+	 * @throws IOException if the snapshot could not be mapped or was created by an incompatible version of Kite
+	 */
+	public static SharedScoreCache loadOffHeap(Path path) throws IOException {
+		DirectBoardScoreCache boardScoreCache = BoardScoreCacheSnapshots.map(path);
+		ScoreCacheSize size = ScoreCacheSize.ofEntries(boardScoreCache.getCapacity());
+		
+		return new SharedScoreCache(size, boardScoreCache);
+	}
+	
+}
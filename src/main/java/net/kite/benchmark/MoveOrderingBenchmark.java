@@ -0,0 +1,78 @@
+package net.kite.benchmark;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.disabled.DisabledBoardScoreBook;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+
+// evaluates boards without an opening book once with and once without the move ordering
+// learned during the search (killer moves and history scores) and reports the number of
+// node evaluations and the compute time of both, the arguments are the moves of the boards
+// separated by commas (a few boards from the tests by default) and the score cache capacity
+// given as a power of two
+public class MoveOrderingBenchmark {
+	
+	private static final String DEFAULT_BOARD_MOVES = "125346141,361432424,174132753,4732566157,1465751162,4343516754,33755514712,64276513625";
+	private static final String BOARD_MOVES_SEPARATOR = ",";
+	
+	private static final int DEFAULT_CAPACITY_EXPONENT = 22;
+	
+	private static final double NANOSECONDS_PER_MILLISECOND = 1000000;
+	
+	public static void main(String[] args) {
+		String[] boardMoves = (args.length > 0 ? args[0] : DEFAULT_BOARD_MOVES).split(BOARD_MOVES_SEPARATOR);
+		int capacityExponent = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CAPACITY_EXPONENT;
+		
+		System.out.println("moves | score | static node evaluations | static milliseconds | learned node evaluations | learned milliseconds");
+		
+		long staticNodeAmount = 0;
+		long learnedNodeAmount = 0;
+		
+		double staticMilliseconds = 0;
+		double learnedMilliseconds = 0;
+		
+		for(String moves : boardMoves) {
+			
+			Board staticBoard = board(moves, capacityExponent, false);
+			
+			long startTime = System.nanoTime();
+			int score = staticBoard.evaluate();
+			long endTime = System.nanoTime();
+			
+			double s = (endTime - startTime) / NANOSECONDS_PER_MILLISECOND;
+			
+			Board learnedBoard = board(moves, capacityExponent, true);
+			
+			startTime = System.nanoTime();
+			int learnedScore = learnedBoard.evaluate();
+			endTime = System.nanoTime();
+			
+			double l = (endTime - startTime) / NANOSECONDS_PER_MILLISECOND;
+			
+			if(learnedScore != score) throw new IllegalStateException("The learned move ordering changed the score of a board!");
+			
+			String result = String.format("%s | %d | %d | %.0f | %d | %.0f", moves, score, staticBoard.getNodeAmount(), s, learnedBoard.getNodeAmount(), l);
+			System.out.println(result);
+			
+			staticNodeAmount += staticBoard.getNodeAmount();
+			learnedNodeAmount += learnedBoard.getNodeAmount();
+			
+			staticMilliseconds += s;
+			learnedMilliseconds += l;
+		}
+		
+		double nodeRatio = staticNodeAmount == 0 ? 1 : (double) learnedNodeAmount / staticNodeAmount;
+		
+		String result = String.format("total | - | %d | %.0f | %d | %.0f (%.1f%% of the node evaluations)", staticNodeAmount, staticMilliseconds, learnedNodeAmount, learnedMilliseconds, 100 * nodeRatio);
+		System.out.println(result);
+	}
+	
+	private static Board board(String moves, int capacityExponent, boolean moveOrderingLearned) {
+		Board board = Board.boardWithMoves(moves, new LocalBoardScoreCache(1 << capacityExponent));
+		
+		board.setOpeningBook(DisabledBoardScoreBook.INSTANCE);
+		board.setMoveOrderingLearned(moveOrderingLearned);
+		
+		return board;
+	}
+	
+}
@@ -0,0 +1,56 @@
+package net.kite.benchmark;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.disabled.DisabledBoardScoreBook;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+
+// evaluates a board (the empty board by default) without an opening book
+// using score caches of increasing capacity and reports the number of node
+// evaluations, the compute time and the fill and hit ratio for each of them,
+// the arguments are the board's moves ("-" for the empty board) as well as
+// the smallest and largest capacity given as powers of two
+public class ScoreCacheBenchmark {
+	
+	private static final String EMPTY_BOARD_MOVES = "-";
+	
+	private static final int DEFAULT_MINIMAL_CAPACITY_EXPONENT = 16;
+	private static final int DEFAULT_MAXIMAL_CAPACITY_EXPONENT = 24;
+	
+	private static final double BYTES_PER_MEGABYTE = 1048576;
+	private static final double NANOSECONDS_PER_MILLISECOND = 1000000;
+	
+	public static void main(String[] args) {
+		String moves = args.length > 0 ? args[0] : EMPTY_BOARD_MOVES;
+		if(moves.equals(EMPTY_BOARD_MOVES)) moves = "";
+		
+		int minimalCapacityExponent = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MINIMAL_CAPACITY_EXPONENT;
+		int maximalCapacityExponent = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAXIMAL_CAPACITY_EXPONENT;
+		
+		System.out.println("capacity | megabytes | score | node evaluations | milliseconds | fill ratio | hit ratio");
+		
+		for(int e = minimalCapacityExponent; e <= maximalCapacityExponent; e++) {
+			
+			int capacity = 1 << e;
+			double megabytes = (double) capacity * LocalBoardScoreCache.ENTRY_BYTE_SIZE / BYTES_PER_MEGABYTE;
+			
+			LocalBoardScoreCache scoreCache = new LocalBoardScoreCache(capacity);
+			Board board = Board.boardWithMoves(moves, scoreCache);
+			board.setOpeningBook(DisabledBoardScoreBook.INSTANCE);
+			
+			long startTime = System.nanoTime();
+			int score = board.evaluate();
+			long endTime = System.nanoTime();
+			
+			double milliseconds = (endTime - startTime) / NANOSECONDS_PER_MILLISECOND;
+			
+			double fillRatio = (double) scoreCache.filledEntryAmount(false) / capacity;
+			
+			long probeAmount = scoreCache.getHitAmount() + scoreCache.getMissAmount();
+			double hitRatio = probeAmount == 0 ? 0 : (double) scoreCache.getHitAmount() / probeAmount;
+			
+			String result = String.format("%d | %.1f | %d | %d | %.0f | %.3f | %.3f", capacity, megabytes, score, board.getNodeAmount(), milliseconds, fillRatio, hitRatio);
+			System.out.println(result);
+		}
+	}
+	
+}
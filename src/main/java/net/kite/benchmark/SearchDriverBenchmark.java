@@ -0,0 +1,97 @@
+package net.kite.benchmark;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.disabled.DisabledBoardScoreBook;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+import net.kite.board.search.driver.BoardSearchDriver;
+import net.kite.board.search.driver.aspiration.AspirationWindowBoardSearchDriver;
+import net.kite.board.search.driver.bisection.BisectionBoardSearchDriver;
+import net.kite.board.search.driver.mtdf.MtdfBoardSearchDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// evaluates boards without an opening book with every search driver and reports the number of
+// node evaluations and the compute time of each driver, every board is evaluated together with
+// all of its moves (like a bot choosing a move would) using a fresh score cache, so that the
+// drivers that start from a guess can use the score of the previous evaluation, the arguments
+// are the moves of the boards separated by commas (a few boards from the tests by default) and
+// the score cache capacity given as a power of two
+public class SearchDriverBenchmark {
+	
+	private static final String DEFAULT_BOARD_MOVES = "4453,125346141,361432424,174132753,4732566157,1465751162,4343516754,33755514712,64276513625";
+	private static final String BOARD_MOVES_SEPARATOR = ",";
+	
+	private static final int DEFAULT_CAPACITY_EXPONENT = 22;
+	
+	private static final String[] SEARCH_DRIVER_NAMES = new String[] {
+			"bisection", "mtd(f)", "aspiration window"
+	};
+	
+	private static final BoardSearchDriver[] SEARCH_DRIVERS = new BoardSearchDriver[] {
+			BisectionBoardSearchDriver.DEFAULT,
+			MtdfBoardSearchDriver.INSTANCE,
+			AspirationWindowBoardSearchDriver.INSTANCE
+	};
+	
+	private static final int MINIMAL_CHILD_CACHE_LOOKUP_DEPTH = 13;
+	
+	private static final double NANOSECONDS_PER_MILLISECOND = 1000000;
+	
+	public static void main(String[] args) {
+		String[] boardMoves = (args.length > 0 ? args[0] : DEFAULT_BOARD_MOVES).split(BOARD_MOVES_SEPARATOR);
+		int capacityExponent = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CAPACITY_EXPONENT;
+		
+		System.out.println("driver | node evaluations | milliseconds | milliseconds per board");
+		
+		List<Integer> bisectionScores = null;
+		
+		long bisectionNodeAmount = 0;
+		
+		for(int i = 0; i < SEARCH_DRIVERS.length; i++) {
+			
+			List<Integer> scores = new ArrayList<>();
+			
+			long nodeAmount = 0;
+			double milliseconds = 0;
+			
+			for(String moves : boardMoves) {
+				
+				Board board = Board.boardWithMoves(moves, new LocalBoardScoreCache(1 << capacityExponent));
+				
+				board.setOpeningBook(DisabledBoardScoreBook.INSTANCE);
+				board.setSearchParameters(MINIMAL_CHILD_CACHE_LOOKUP_DEPTH, SEARCH_DRIVERS[i]);
+				
+				long startTime = System.nanoTime();
+				
+				scores.add(board.evaluate());
+				
+				for(int x = 0; x < Board.getWidth(); x++) {
+					
+					if(board.moveLegal(x)) scores.add(board.evaluateMove(x));
+				}
+				
+				long endTime = System.nanoTime();
+				
+				nodeAmount += board.getNodeAmount();
+				milliseconds += (endTime - startTime) / NANOSECONDS_PER_MILLISECOND;
+			}
+			
+			if(bisectionScores == null) {
+				
+				bisectionScores = scores;
+				bisectionNodeAmount = nodeAmount;
+				
+			} else if(!scores.equals(bisectionScores)) {
+				
+				throw new IllegalStateException("The search drivers evaluated the same boards differently!");
+			}
+			
+			double nodeRatio = bisectionNodeAmount == 0 ? 1 : (double) nodeAmount / bisectionNodeAmount;
+			
+			String result = String.format("%s | %d (%.1f%%) | %.0f | %.1f", SEARCH_DRIVER_NAMES[i], nodeAmount, 100 * nodeRatio, milliseconds, milliseconds / boardMoves.length);
+			System.out.println(result);
+		}
+	}
+	
+}
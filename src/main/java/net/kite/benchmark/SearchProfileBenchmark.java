@@ -0,0 +1,179 @@
+package net.kite.benchmark;
+
+import net.kite.Kite;
+import net.kite.OpeningBook;
+import net.kite.ScoreCacheStatistics;
+import net.kite.SearchProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// runs the workloads of both shipped search profiles with solvers of both profiles and reports
+// the compute time and the number of score cache probes of each run, so that each profile can be
+// checked to be the fastest for its own workload, the interactive workload plays random games
+// starting after the end of the built-in opening book in which every move is evaluated before the
+// best (or sometimes a random) move is played and the cold solve workload evaluates hard boards
+// without an opening book with a cleared score cache, the arguments are the number of games, the
+// moves of the boards of the cold solve workload separated by commas ("-" for the empty board,
+// which is also the default) and the seed of the games
+public class SearchProfileBenchmark {
+	
+	private static final int DEFAULT_GAME_AMOUNT = 300;
+	private static final String EMPTY_BOARD_MOVES = "-";
+	private static final String BOARD_MOVES_SEPARATOR = ",";
+	private static final long DEFAULT_SEED = 0;
+	
+	private static final SearchProfile[] SEARCH_PROFILES = new SearchProfile[] {
+			SearchProfile.BOOK_BACKED_INTERACTIVE,
+			SearchProfile.DEEP_COLD_SOLVE
+	};
+	
+	private static final int BOARD_WIDTH = 7;
+	
+	// the number of moves that are played at random after the end of the opening book
+	private static final int MAXIMAL_RANDOM_MOVE_AMOUNT = 3;
+	
+	// the chance of playing a random move instead of the best one
+	private static final double RANDOM_MOVE_PROBABILITY = 0.3;
+	
+	private static final double NANOSECONDS_PER_MILLISECOND = 1000000;
+	
+	public static void main(String[] args) {
+		int gameAmount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAME_AMOUNT;
+		String[] boardMoves = (args.length > 1 ? args[1] : EMPTY_BOARD_MOVES).split(BOARD_MOVES_SEPARATOR);
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+		
+		System.out.println("profile | workload | milliseconds | score cache probes");
+		
+		List<Integer> interactiveScores = null;
+		List<Integer> coldSolveScores = null;
+		
+		for(SearchProfile searchProfile : SEARCH_PROFILES) {
+			
+			Kite kite = Kite.createInstance(searchProfile);
+			
+			long startProbeAmount = probeAmount(kite);
+			
+			long startTime = System.nanoTime();
+			List<Integer> scores = playGames(kite, gameAmount, seed);
+			long endTime = System.nanoTime();
+			
+			double milliseconds = (endTime - startTime) / NANOSECONDS_PER_MILLISECOND;
+			long probeAmount = probeAmount(kite) - startProbeAmount;
+			
+			if(interactiveScores == null) interactiveScores = scores;
+			else checkScores(interactiveScores, scores);
+			
+			String result = String.format("%s | interactive | %.0f | %d", searchProfile.getName(), milliseconds, probeAmount);
+			System.out.println(result);
+			
+			kite.setOpeningBook(OpeningBook.disabled());
+			
+			milliseconds = 0;
+			probeAmount = 0;
+			
+			scores = new ArrayList<>();
+			
+			for(int i = 0; i < boardMoves.length; i++) {
+				
+				kite.clearScoreCache();
+				kite.setupBoard(moveColumnIndices(boardMoves[i]));
+				
+				startTime = System.nanoTime();
+				int score = kite.evaluateBoard();
+				endTime = System.nanoTime();
+				
+				scores.add(score);
+				
+				milliseconds += (endTime - startTime) / NANOSECONDS_PER_MILLISECOND;
+				probeAmount += probeAmount(kite);
+			}
+			
+			if(coldSolveScores == null) coldSolveScores = scores;
+			else checkScores(coldSolveScores, scores);
+			
+			result = String.format("%s | cold solve | %.0f | %d", searchProfile.getName(), milliseconds, probeAmount);
+			System.out.println(result);
+		}
+	}
+	
+	// the scores of all evaluated moves of all games
+	private static List<Integer> playGames(Kite kite, int gameAmount, long seed) {
+		Random random = new Random(seed);
+		
+		int openingBookMaximalDepth = kite.getOpeningBook().getMaximalDepth();
+		
+		List<Integer> scores = new ArrayList<>();
+		
+		int[] moveScores = new int[BOARD_WIDTH];
+		
+		for(int i = 0; i < gameAmount; i++) {
+			
+			kite.clearBoard();
+			kite.ageScoreCache();
+			
+			int depth = openingBookMaximalDepth + 1 + random.nextInt(MAXIMAL_RANDOM_MOVE_AMOUNT);
+			
+			while(kite.playedMoveAmount() < depth && !kite.gameOver()) {
+				
+				int moveColumnIndex = 1 + random.nextInt(BOARD_WIDTH);
+				if(kite.moveLegal(moveColumnIndex)) kite.playMove(moveColumnIndex);
+			}
+			
+			while(!kite.gameOver()) {
+				
+				kite.evaluateAllMoves(moveScores);
+				
+				int bestMoveColumnIndex = 0;
+				
+				for(int moveColumnIndex = 1; moveColumnIndex <= BOARD_WIDTH; moveColumnIndex++) {
+					
+					if(!kite.moveLegal(moveColumnIndex)) continue;
+					
+					int moveScore = moveScores[moveColumnIndex - 1];
+					scores.add(moveScore);
+					
+					if(bestMoveColumnIndex == 0 || moveScore > moveScores[bestMoveColumnIndex - 1]) bestMoveColumnIndex = moveColumnIndex;
+				}
+				
+				int moveColumnIndex = bestMoveColumnIndex;
+				
+				if(random.nextDouble() < RANDOM_MOVE_PROBABILITY) {
+					
+					do {
+						
+						moveColumnIndex = 1 + random.nextInt(BOARD_WIDTH);
+						
+					} while(!kite.moveLegal(moveColumnIndex));
+				}
+				
+				kite.playMove(moveColumnIndex);
+			}
+		}
+		
+		return scores;
+	}
+	
+	private static void checkScores(List<Integer> scores, List<Integer> otherScores) {
+		if(!scores.equals(otherScores)) throw new IllegalStateException("The search profiles evaluated the same boards differently!");
+	}
+	
+	// the probes since the score cache was created or cleared
+	private static long probeAmount(Kite kite) {
+		ScoreCacheStatistics statistics = kite.scoreCacheStatistics();
+		return statistics.getHitAmount() + statistics.getMissAmount();
+	}
+	
+	private static int[] moveColumnIndices(String moves) {
+		if(moves.equals(EMPTY_BOARD_MOVES)) return new int[0];
+		
+		int l = moves.length();
+		int[] moveColumnIndices = new int[l];
+		
+		for(int i = 0; i < l; i++) moveColumnIndices[i] = moves.charAt(i) - '0';
+		
+		return moveColumnIndices;
+	}
+	
+}
@@ -2,14 +2,23 @@ package net.kite.board;
 
 import net.kite.board.bit.Bitboard;
 import net.kite.board.bit.Bitboards;
+import net.kite.board.evaluation.abort.BoardEvaluationAbort;
+import net.kite.board.hash.BoardHashes;
 import net.kite.board.history.BoardHistory;
 import net.kite.board.history.entry.BoardHistoryEntry;
 import net.kite.board.line.BoardLine;
+import net.kite.board.order.BoardMoveOrder;
 import net.kite.board.outcome.BoardOutcome;
 import net.kite.board.player.color.BoardPlayerColor;
 import net.kite.board.score.BoardScore;
+import net.kite.board.score.book.BoardScoreBook;
 import net.kite.board.score.cache.BoardScoreCache;
 import net.kite.board.score.cache.opening.OpeningBoardScoreCaches;
+import net.kite.board.search.driver.BoardSearchDriver;
+import net.kite.board.search.driver.bisection.BisectionBoardSearchDriver;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Board {
 	
@@ -54,36 +63,25 @@ public class Board {
 			3, 2, 4, 1, 5, 0, 6
 	};
 	
-	private static final int MOVE_SCORE_CONNECTION_OPPORTUNITY_WEIGHT = 218;
-	private static final int MOVE_SCORE_COLUMN_FORK_WEIGHT = 233;
-	private static final int MOVE_SCORE_IMMEDIATE_THREAT_WEIGHT = 465;
-	private static final int MOVE_SCORE_SOON_THREAT_WEIGHT = 602;
-	
-	private static final int[] RED_MOVE_CELL_SCORES = new int[] {
-			 15,  44,  23, 175,  68, 479,   0,   0,
-			 93, 125,  97, 179, 209, 309,   0,   0,
-			123, 204, 501, 389, 197, 421,   0,   0,
-			337, 385, 351, 289, 428, 450,   0,   0,
-			123, 204, 501, 389, 197, 421,   0,   0,
-			 93, 125,  97, 179, 209, 309,   0,   0,
-			 15,  44,  23, 175,  68, 479
-	};
+	private static final int MISSING_MOVE_SCORE = Integer.MIN_VALUE;
 	
-	private static final int[] YELLOW_MOVE_CELL_SCORES = new int[] {
-			 66, 149,  10, 196, 141, 463,   0,   0,
-			 33, 176, 242, 268,  31, 469,   0,   0,
-			132, 285, 257, 419, 219, 375,   0,   0,
-			177, 414, 599, 583, 516, 513,   0,   0,
-			132, 285, 257, 419, 219, 375,   0,   0,
-			 33, 176, 242, 268,  31, 469,   0,   0,
-			 66, 149,  10, 196, 141, 463
-	};
+	// the move stored in a board's cache entry is tried first
+	private static final int CACHED_MOVE_SCORE = Integer.MAX_VALUE;
 	
-	private static final int MISSING_MOVE_SCORE = Integer.MIN_VALUE;
+	// a move into the cell whose move caused the last cutoff at the same number
+	// of played moves (a killer move) gets a small bonus, just like moves into
+	// cells whose moves recently caused cutoffs, history scores are bounded
+	// by the limit and only a small fraction of them is added to move scores
+	// as larger bonuses override the static move scores and increase the
+	// number of evaluated nodes
+	private static final int MOVE_SCORE_KILLER_MOVE_BONUS = 32;
 	
-	private static final int BITBOARD_CONNECTION_OPPORTUNITY_LENGTH = 3;
+	private static final int MOVE_SCORE_HISTORY_LIMIT = 2048;
+	private static final int LOGARITHMIC_MOVE_SCORE_HISTORY_DIVISOR = 5;
+	
+	private static final int LOGARITHMIC_HISTORY_DECAY = 1;
 	
-	private static final int MIRRORED_BITBOARD_SHIFT_AMOUNT = 8;
+	private static final int BITBOARD_CONNECTION_OPPORTUNITY_LENGTH = 3;
 	
 	private static final int LOGARITHMIC_BITBOARD_LENGTH = 3;
 	private static final int LARGEST_BITBOARD_Y = 7;
@@ -93,23 +91,20 @@ public class Board {
 	
 	private static final char SMALLEST_MOVE_CHARACTER = '1';
 	
-	private static final long[] HASH_MIX_MAGICS = new long[] {
-			0xFF51AFD7ED558CCDL,
-			0xC4CEB9FE1A85EC53L
-	};
-	
-	private static final long EMPTY_MIXED_HASH = 0x2373BFB0BD385EEAL;
+	private static final int COLUMN_HASH_BASE = 3;
 	
-	private static final int HASH_MIX_SHIFT_AMOUNT = 33;
+	private static final int ACTIVE_CELL_COLUMN_HASH_DIGIT = 1;
+	private static final int INACTIVE_CELL_COLUMN_HASH_DIGIT = 2;
 	
-	private static final int COLUMN_HASH_BASE = 3;
+	// the powers of the column hash base
+	private static final long[] COLUMN_HASH_FACTORS = new long[] {
+			1, 3, 9, 27, 81, 243, 729, 2187
+	};
 	
-	private static final int MINIMAL_CHILD_CACHE_LOOKUP_DEPTH = 13;
+	private static final int DEFAULT_MINIMAL_CHILD_CACHE_LOOKUP_DEPTH = 13;
 	
 	private static final int BITBOARD_HEIGHT = 8;
 	
-	private static final int MAXIMAL_DISABLED_ITERATIVE_DEEPENING_SCORE_RANGE = 11;
-	
 	private static final float ELO_APPROXIMATION_FIRST_COEFFICIENT = 53.167f;
 	private static final float ELO_APPROXIMATION_SECOND_COEFFICIENT = 0.000661f;
 	private static final float ELO_APPROXIMATION_THIRD_COEFFICIENT = -414.261f;
@@ -130,8 +125,15 @@ public class Board {
 	
 	private static final int MAXIMAL_LINE_AMOUNT = 4;
 	
+	private static final long ABORTION_CHECK_NODE_MASK = 0x00000000000003FFL;
+	
 	private final int[] cellColumnHeights = new int[WIDTH];
 	
+	// the base-3 digits of each column's cells followed by a zero digit, once
+	// with red and once with yellow cells counting as the active player's cells
+	private final int[] redColumnHashes = new int[WIDTH];
+	private final int[] yellowColumnHashes = new int[WIDTH];
+	
 	private boolean symmetrical = true;
 	
 	private int filledCellAmount;
@@ -150,14 +152,60 @@ public class Board {
 	private final int[] playedMoves;
 	private final int[] undoneMoves;
 	
-	private long hash = Bitboards.EMPTY_CEILING;
-	private long mixedHash = EMPTY_MIXED_HASH;
+	// the hashes of the bitboard and the mask bitboard as well as of their mirrored
+	// versions, the hash of the board is the smaller of both bitboard hashes
+	private long bitboardHash = BoardHashes.EMPTY;
+	private long maskBitboardHash;
+	private long mirroredBitboardHash = BoardHashes.EMPTY;
+	private long mirroredMaskBitboardHash;
+	
+	private long hash = BoardHashes.EMPTY;
 	
 	private final BoardHistory history;
 	private final BoardScoreCache scoreCache;
 	
+	private BoardScoreBook openingBook = OpeningBoardScoreCaches.DEFAULT;
+	private int openingBookMaximalDepth = OpeningBoardScoreCaches.DEFAULT.maximalDepth();
+	
 	private final BoardLine[] lines = new BoardLine[MAXIMAL_LINE_AMOUNT];
 	
+	// copied from the move order so that move scores can be computed without indirections
+	private BoardMoveOrder moveOrder = BoardMoveOrder.DEFAULT;
+	
+	private int moveScoreConnectionOpportunityWeight = moveOrder.getConnectionOpportunityWeight();
+	private int moveScoreColumnForkWeight = moveOrder.getColumnForkWeight();
+	private int moveScoreImmediateThreatWeight = moveOrder.getImmediateThreatWeight();
+	private int moveScoreSoonThreatWeight = moveOrder.getSoonThreatWeight();
+	
+	private int[] redMoveCellScores = moveOrder.getRedCellScores();
+	private int[] yellowMoveCellScores = moveOrder.getYellowCellScores();
+	
+	// learned during the search and decayed before every evaluation
+	private final int[] redMoveCellHistoryScores = new int[BoardMoveOrder.CELL_SCORE_AMOUNT];
+	private final int[] yellowMoveCellHistoryScores = new int[BoardMoveOrder.CELL_SCORE_AMOUNT];
+	
+	// the cell of the killer move of each number of played moves
+	private final int[] killerMovePositions = new int[FULL_CELL_AMOUNT];
+	
+	private boolean moveOrderingLearned = true;
+	
+	private int minimalChildCacheLookupDepth = DEFAULT_MINIMAL_CHILD_CACHE_LOOKUP_DEPTH;
+	private BoardSearchDriver searchDriver = BisectionBoardSearchDriver.DEFAULT;
+	
+	// the score of the last evaluated board, which is the guess of the next evaluation
+	private int previousScore = BoardScore.DRAW;
+	private int previousScoreFilledCellAmount;
+	
+	private long nodeAmount;
+	
+	// counted during an evaluation and only added to
+	// the statistics of the score cache once it is over
+	private long scoreCacheHitAmount;
+	private long scoreCacheMissAmount;
+	private long scoreCacheOverwriteAmount;
+	
+	private volatile boolean evaluationAborted;
+	
 	public Board(BoardScoreCache scoreCache) {
 		this.scoreCache = scoreCache;
 		
@@ -167,6 +215,8 @@ public class Board {
 		this.undoneMoves = new int[FULL_CELL_AMOUNT];
 		
 		this.history = new BoardHistory();
+		
+		Arrays.fill(killerMovePositions, BoardScoreCache.MISSING_MOVE);
 	}
 	
 	@Override
@@ -388,36 +438,19 @@ public class Board {
 	}
 	
 	public long columnHash() {
+		boolean redAtTurn = (filledCellAmount & 1) == 0;
+		int[] columnHashes = redAtTurn ? redColumnHashes : yellowColumnHashes;
+		
 		long h1 = 0;
 		long h2 = 0;
 		
-		for(int x = 0; x < WIDTH; x++) h1 = partialColumnHash(h1, x);
-		for(int x = LARGEST_MOVE_CELL_X; x >= 0; x--) h2 = partialColumnHash(h2, x);
+		for(int x = 0; x < WIDTH; x++) h1 = h1 * COLUMN_HASH_FACTORS[cellColumnHeights[x] + 1] + columnHashes[x];
+		for(int x = LARGEST_MOVE_CELL_X; x >= 0; x--) h2 = h2 * COLUMN_HASH_FACTORS[cellColumnHeights[x] + 1] + columnHashes[x];
 		
 		if(h2 < h1) h1 = h2;
 		return Long.divideUnsigned(h1, 3);
 	}
 	
-	private long partialColumnHash(long columnHash, int x) {
-		int height = cellColumnHeights[x];
-		long board = Bitboards.BOTTOM_CELL_BITBOARDS[x];
-		
-		for(int y = 0; y < height; y++) {
-			
-			columnHash *= COLUMN_HASH_BASE;
-			
-			boolean activeCell = (activeBitboard & board) != 0;
-			
-			if(activeCell) columnHash++;
-			else columnHash += 2;
-			
-			board <<= 1;
-		}
-		
-		columnHash *= COLUMN_HASH_BASE;
-		return columnHash;
-	}
-	
 	public int evaluateMove(int moveCellX) {
 		playMove(moveCellX);
 		
@@ -438,11 +471,43 @@ public class Board {
 		return score;
 	}
 	
+	// the minimal score might be raised by other threads while the move is being evaluated
+	public int evaluateMove(int moveCellX, AtomicInteger sharedMinScore) {
+		playMove(moveCellX);
+		
+		int minScore = sharedMinScore.get();
+		int score = -evaluate(-minScore, sharedMinScore);
+		
+		undoMove();
+		
+		return score;
+	}
+	
 	public int evaluate() {
 		return evaluate(Integer.MAX_VALUE);
 	}
 	
 	public int evaluate(int maxScore) {
+		return evaluate(maxScore, null);
+	}
+	
+	private int evaluate(int maxScore, AtomicInteger sharedOpponentMinScore) {
+		try {
+			
+			return evaluateWithScoreCacheStatistics(maxScore, sharedOpponentMinScore);
+			
+		} finally {
+			
+			// aborted evaluations count as well
+			scoreCache.addStatistics(scoreCacheHitAmount, scoreCacheMissAmount, scoreCacheOverwriteAmount);
+			
+			scoreCacheHitAmount = 0;
+			scoreCacheMissAmount = 0;
+			scoreCacheOverwriteAmount = 0;
+		}
+	}
+	
+	private int evaluateWithScoreCacheStatistics(int maxScore, AtomicInteger sharedOpponentMinScore) {
 		if(outcome != BoardOutcome.UNDECIDED) {
 			
 			if(outcome == BoardOutcome.DRAW) return BoardScore.DRAW;
@@ -454,22 +519,24 @@ public class Board {
 			return BoardScore.win(filledCellAmount + 1);
 		}
 		
-		int openingBoardScore = OpeningBoardScoreCaches.DEFAULT.boardScore(this);
-		if(openingBoardScore != Integer.MIN_VALUE) return openingBoardScore;
+		int openingBoardScore = openingBoardScore();
+		if(openingBoardScore != BoardScoreBook.MISSING_BOARD_SCORE) return openingBoardScore;
+		
+		decayMoveOrderingStatistics();
 		
 		int minimalScore = BoardScore.minimal(filledCellAmount);
 		int maximalScore = BoardScore.maximal(filledCellAmount);
 		
 		if(maximalScore > maxScore) maximalScore = maxScore;
 		
-		if(filledCellAmount > 0) {
+		if(filledCellAmount > 0 && filledCellAmount <= openingBookMaximalDepth + 1) {
 			
 			undoMove();
 			
 			int lastMove = playedMoves[filledCellAmount];
 			
-			openingBoardScore = OpeningBoardScoreCaches.DEFAULT.boardScore(this);
-			if(openingBoardScore != Integer.MIN_VALUE) {
+			openingBoardScore = openingBoardScore();
+			if(openingBoardScore != BoardScoreBook.MISSING_BOARD_SCORE) {
 				
 				int s = -openingBoardScore;
 				if(minimalScore < s) minimalScore = s;
@@ -478,52 +545,69 @@ public class Board {
 			playMove(lastMove);
 		}
 		
-		int entryKey = scoreCache.entryKey(hash, mixedHash);
-		if(entryKey >= 0) {
+		int entry = scoreCacheEntry(hash);
+		if(entry != BoardScoreCache.MISSING_ENTRY) {
 			
-			int entryMinScore = scoreCache.entryMinimalScore(entryKey);
-			int entryMaxScore = scoreCache.entryMaximalScore(entryKey);
+			int entryMinScore = BoardScoreCache.entryMinimalScore(entry);
+			int entryMaxScore = BoardScoreCache.entryMaximalScore(entry);
 			
 			if(entryMinScore > minimalScore) minimalScore = entryMinScore;
 			if(entryMaxScore < maximalScore) maximalScore = entryMaxScore;
 		}
 		
+		int guess = guess();
+		int searchAmount = 0;
+		
 		while(minimalScore < maximalScore) {
 			
-			int s1 = (minimalScore + maximalScore) >> 1;
-			
-			int range = maximalScore - minimalScore;
-			if(range > MAXIMAL_DISABLED_ITERATIVE_DEEPENING_SCORE_RANGE) {
+			if(sharedOpponentMinScore != null) {
 				
-				int s2 = minimalScore >> 1;
-				int s3 = maximalScore >> 1;
-				
-				if(s1 >= 0 && s1 < s3) {
-					
-					s1 = s3;
+				int s = -sharedOpponentMinScore.get();
+				if(s < maximalScore) {
 					
-				} else if(s1 <= 0 && s1 > s2) {
-					
-					s1 = s2;
+					maximalScore = s;
+					if(minimalScore >= maximalScore) break;
 				}
 			}
 			
-			int evaluationResult = evaluateWithNoImmediateWin(s1, s1 + 1);
-			if(evaluationResult <= s1) {
+			guess = Math.max(minimalScore, Math.min(guess, maximalScore));
+			
+			int windowMinimalScore = searchDriver.windowMinimalScore(minimalScore, maximalScore, guess, searchAmount);
+			int windowMaximalScore = searchDriver.windowMaximalScore(minimalScore, maximalScore, guess, searchAmount);
+			
+			int evaluationResult = evaluateWithNoImmediateWin(windowMinimalScore, windowMaximalScore);
+			if(evaluationResult <= windowMinimalScore) {
 				
 				maximalScore = evaluationResult;
 				
+			} else if(evaluationResult >= windowMaximalScore) {
+				
+				minimalScore = evaluationResult;
+				
 			} else {
 				
 				minimalScore = evaluationResult;
+				maximalScore = evaluationResult;
 			}
+			
+			guess = evaluationResult;
+			searchAmount++;
 		}
 		
+		previousScore = minimalScore;
+		previousScoreFilledCellAmount = filledCellAmount;
+		
 		return minimalScore;
 	}
 	
 	// only interested in scores in between min and max (excluding min and max tho)
 	private int evaluateWithNoImmediateWin(int minimalScore, int maximalScore) {
+		long startNodeAmount = ++nodeAmount;
+		
+		// the flag is only checked every once in a while, aborting
+		// unwinds the search without updating any cache entries
+		if((nodeAmount & ABORTION_CHECK_NODE_MASK) == 0 && evaluationAborted) throw BoardEvaluationAbort.INSTANCE;
+		
 		int minScore = BoardScore.minimal(filledCellAmount);
 		int maxScore = BoardScore.maximalWithNoImmediateWin(filledCellAmount);
 		
@@ -574,25 +658,34 @@ public class Board {
 		
 		if(minimalScore >= maximalScore) return minimalScore;
 		
-		int openingBoardScore = OpeningBoardScoreCaches.DEFAULT.boardScore(this);
-		if(openingBoardScore != Integer.MIN_VALUE) return openingBoardScore;
+		int openingBoardScore = openingBoardScore();
+		if(openingBoardScore != BoardScoreBook.MISSING_BOARD_SCORE) return openingBoardScore;
 		
-		int entryKey = scoreCache.entryKey(hash, mixedHash);
-		if(entryKey >= 0) {
+		int cachedMove = BoardScoreCache.MISSING_MOVE;
+		
+		int entry = scoreCacheEntry(hash);
+		if(entry != BoardScoreCache.MISSING_ENTRY) {
 			
-			int entryMinScore = scoreCache.entryMinimalScore(entryKey);
-			int entryMaxScore = scoreCache.entryMaximalScore(entryKey);
+			int entryMinScore = BoardScoreCache.entryMinimalScore(entry);
+			int entryMaxScore = BoardScoreCache.entryMaximalScore(entry);
 			
 			if(entryMinScore > minimalScore) minimalScore = entryMinScore;
 			if(entryMaxScore < maximalScore) maximalScore = entryMaxScore;
 			
 			if(minimalScore >= maximalScore) return minimalScore;
+			
+			cachedMove = canonicalMove(BoardScoreCache.entryMove(entry));
 		}
 		
-		if(filledCellAmount > MINIMAL_CHILD_CACHE_LOOKUP_DEPTH) {
+		if(filledCellAmount > minimalChildCacheLookupDepth) {
 			
 			int max = Integer.MIN_VALUE;
 			
+			// the bitboard of a child is the board's bitboard xor its mask
+			// bitboard with the move's cell and the cell above it flipped
+			long childBitboardHash = bitboardHash ^ maskBitboardHash;
+			long mirroredChildBitboardHash = mirroredBitboardHash ^ mirroredMaskBitboardHash;
+			
 			long movesBitboard = ceilingBitboard & Bitboards.FULL_BOARD;
 			while(movesBitboard != 0) {
 				
@@ -601,18 +694,16 @@ public class Board {
 				long moveBitboard = 1L << movePosition;
 				movesBitboard ^= moveBitboard;
 				
-				long h1 = (bitboard ^ maskBitboard) + moveBitboard;
-				long h2 = Long.reverseBytes(h1) >>> MIRRORED_BITBOARD_SHIFT_AMOUNT;
+				long h1 = childBitboardHash ^ BoardHashes.moveHash(movePosition);
+				long h2 = mirroredChildBitboardHash ^ BoardHashes.mirroredMoveHash(movePosition);
 				
 				if(h2 < h1) h1 = h2;
 				
-				long mixedHash = mixedHash(h1);
-				
-				entryKey = scoreCache.entryKey(h1, mixedHash);
-				if(entryKey >= 0) {
+				entry = scoreCacheEntry(h1);
+				if(entry != BoardScoreCache.MISSING_ENTRY) {
 					
-					int entryMinScore = -scoreCache.entryMaximalScore(entryKey);
-					int entryMaxScore = -scoreCache.entryMinimalScore(entryKey);
+					int entryMinScore = -BoardScoreCache.entryMaximalScore(entry);
+					int entryMaxScore = -BoardScoreCache.entryMinimalScore(entry);
 					
 					if(entryMinScore > minimalScore) {
 						
@@ -666,13 +757,13 @@ public class Board {
 			
 			if(s >= maximalScore) {
 				
-				scoreCache.updateEntry(hash, mixedHash, s, maxScore);
+				updateScoreCacheEntry(s, maxScore, work(startNodeAmount), canonicalMove(forcedX));
 				return s;
 			}
 			
 			if(s > minimalScore) minimalScore = s;
 			
-			scoreCache.updateEntry(hash, mixedHash, minScore, minimalScore);
+			updateScoreCacheEntry(minScore, minimalScore, work(startNodeAmount), canonicalMove(forcedX));
 			
 			return minimalScore;
 		}
@@ -702,6 +793,10 @@ public class Board {
 			}
 			
 			int moveScore = moveScore(movePosition, moveBitboard, opponentWinBitboard);
+			
+			if(movePosition == killerMovePositions[filledCellAmount]) moveScore += MOVE_SCORE_KILLER_MOVE_BONUS;
+			if(moveCellX == cachedMove) moveScore = CACHED_MOVE_SCORE;
+			
 			int moveIndex = moveAmount;
 			
 			moves[moveIndex] = moveCellX;
@@ -718,11 +813,14 @@ public class Board {
 		
 		if(moveAmount == 0) {
 			
-			scoreCache.updateEntry(hash, mixedHash, minScore, minScore);
+			updateScoreCacheEntry(minScore, minScore, work(startNodeAmount), BoardScoreCache.MISSING_MOVE);
 			
 			return minimalScore;
 		}
 		
+		// the move that raised the lower bound, if any
+		int bestMove = BoardScoreCache.MISSING_MOVE;
+		
 		int i = 0;
 		while(true) {
 			
@@ -738,13 +836,16 @@ public class Board {
 			
 			if(s >= maximalScore) {
 				
-				scoreCache.updateEntry(hash, mixedHash, s, maxScore);
+				updateScoreCacheEntry(s, maxScore, work(startNodeAmount), canonicalMove(moveCellX));
+				rewardCutoffMove(moveCellX);
+				
 				return s;
 			}
 			
 			if(s > minimalScore) {
 				
 				minimalScore = s;
+				bestMove = moveCellX;
 			}
 			
 			i++;
@@ -764,11 +865,82 @@ public class Board {
 			}
 		}
 		
-		scoreCache.updateEntry(hash, mixedHash, minScore, minimalScore);
+		updateScoreCacheEntry(minScore, minimalScore, work(startNodeAmount), canonicalMove(bestMove));
 		
 		return minimalScore;
 	}
 	
+	// the fewer moves have been played, the larger the subtree
+	// that a cutoff saved and the larger the reward
+	private void rewardCutoffMove(int moveCellX) {
+		if(!moveOrderingLearned) return;
+		
+		boolean redAtTurn = (filledCellAmount & 1) == 0;
+		int[] moveCellHistoryScores = redAtTurn ? redMoveCellHistoryScores : yellowMoveCellHistoryScores;
+		
+		int movePosition = (moveCellX << LOGARITHMIC_BITBOARD_LENGTH) + cellColumnHeights[moveCellX];
+		killerMovePositions[filledCellAmount] = movePosition;
+		
+		int reward = FULL_CELL_AMOUNT - filledCellAmount;
+		
+		// approaches the limit without ever exceeding it
+		int historyScore = moveCellHistoryScores[movePosition];
+		moveCellHistoryScores[movePosition] = historyScore + reward - historyScore * reward / MOVE_SCORE_HISTORY_LIMIT;
+	}
+	
+	private void decayMoveOrderingStatistics() {
+		int l = redMoveCellHistoryScores.length;
+		
+		for(int i = 0; i < l; i++) {
+			
+			redMoveCellHistoryScores[i] >>= LOGARITHMIC_HISTORY_DECAY;
+			yellowMoveCellHistoryScores[i] >>= LOGARITHMIC_HISTORY_DECAY;
+		}
+	}
+	
+	// moves are cached as moves of the board whose hash is the smaller one
+	// out of the board and its mirrored board, converting a move twice
+	// results in the original move
+	private int canonicalMove(int moveCellX) {
+		if(moveCellX == BoardScoreCache.MISSING_MOVE || hash == bitboardHash) return moveCellX;
+		
+		return LARGEST_MOVE_CELL_X - moveCellX;
+	}
+	
+	// the score of the previously evaluated board (negated if the other player was at turn),
+	// which is close to the score of this board when boards of one game are evaluated in order
+	private int guess() {
+		boolean samePlayerAtTurn = ((filledCellAmount ^ previousScoreFilledCellAmount) & 1) == 0;
+		return samePlayerAtTurn ? previousScore : -previousScore;
+	}
+	
+	// books are only consulted for boards they might contain
+	private int openingBoardScore() {
+		if(filledCellAmount > openingBookMaximalDepth) return BoardScoreBook.MISSING_BOARD_SCORE;
+		
+		return openingBook.boardScore(this);
+	}
+	
+	private int scoreCacheEntry(long hash) {
+		int entry = scoreCache.entry(hash);
+		
+		if(entry == BoardScoreCache.MISSING_ENTRY) scoreCacheMissAmount++;
+		else scoreCacheHitAmount++;
+		
+		return entry;
+	}
+	
+	private void updateScoreCacheEntry(int minimalScore, int maximalScore, int work, int move) {
+		boolean overwritten = scoreCache.updateEntry(hash, minimalScore, maximalScore, work, move);
+		if(overwritten) scoreCacheOverwriteAmount++;
+	}
+	
+	// the binary logarithm of the number of nodes
+	// that were evaluated since the given node amount
+	private int work(long startNodeAmount) {
+		return Long.SIZE - Long.numberOfLeadingZeros(nodeAmount - startNodeAmount);
+	}
+	
 	private int moveScore(int moveCellPosition, long moveBitboard, long opponentOpenThreats) {
 		long board = activeBitboard;
 		long mask = maskBitboard;
@@ -789,25 +961,27 @@ public class Board {
 		result &= ~(opponentOpenThreats << 1);
 		
 		boolean redAtTurn = (filledCellAmount & 1) == 0;
-		int[] moveCellScores = redAtTurn ? RED_MOVE_CELL_SCORES : YELLOW_MOVE_CELL_SCORES;
 		
-		int moveScore = moveCellScores[moveCellPosition];
+		int[] moveCellScores = redAtTurn ? redMoveCellScores : yellowMoveCellScores;
+		int[] moveCellHistoryScores = redAtTurn ? redMoveCellHistoryScores : yellowMoveCellHistoryScores;
 		
-		moveScore += Long.bitCount(result) * MOVE_SCORE_CONNECTION_OPPORTUNITY_WEIGHT;
+		int moveScore = moveCellScores[moveCellPosition] + (moveCellHistoryScores[moveCellPosition] >> LOGARITHMIC_MOVE_SCORE_HISTORY_DIVISOR);
+		
+		moveScore += Long.bitCount(result) * moveScoreConnectionOpportunityWeight;
 		
 		long responseMoves = ceiling & Bitboards.FULL_BOARD;
 		long l1 = result & responseMoves;
 		
-		moveScore += Long.bitCount(l1) * MOVE_SCORE_IMMEDIATE_THREAT_WEIGHT;
+		moveScore += Long.bitCount(l1) * moveScoreImmediateThreatWeight;
 		
 		responseMoves <<= 1;
 		long l2 = result & responseMoves;
 		
-		moveScore += Long.bitCount(l2) * MOVE_SCORE_SOON_THREAT_WEIGHT;
+		moveScore += Long.bitCount(l2) * moveScoreSoonThreatWeight;
 		
 		result &= result << 1;
 		
-		moveScore += Long.bitCount(result) * MOVE_SCORE_COLUMN_FORK_WEIGHT;
+		moveScore += Long.bitCount(result) * moveScoreColumnForkWeight;
 		
 		return moveScore;
 	}
@@ -840,13 +1014,19 @@ public class Board {
 		entry.fill(
 				symmetrical,
 				bitboard, activeBitboard, maskBitboard, ceilingBitboard,
-				hash, mixedHash
+				bitboardHash, maskBitboardHash, mirroredBitboardHash, mirroredMaskBitboardHash,
+				hash
 		);
 		
 		int moveCellY = cellColumnHeights[moveCellX];
 		
 		cellColumnHeights[moveCellX]++;
 		
+		boolean redMove = (filledCellAmount & 1) == 0;
+		
+		redColumnHashes[moveCellX] = COLUMN_HASH_BASE * (redColumnHashes[moveCellX] + (redMove ? ACTIVE_CELL_COLUMN_HASH_DIGIT : INACTIVE_CELL_COLUMN_HASH_DIGIT));
+		yellowColumnHashes[moveCellX] = COLUMN_HASH_BASE * (yellowColumnHashes[moveCellX] + (redMove ? INACTIVE_CELL_COLUMN_HASH_DIGIT : ACTIVE_CELL_COLUMN_HASH_DIGIT));
+		
 		boolean wasEven = (moveCellY & 1) == 0;
 		if(wasEven) evenParityCellColumnAmount--;
 		else evenParityCellColumnAmount++;
@@ -867,6 +1047,12 @@ public class Board {
 		ceilingBitboard |= b1;
 		bitboard = activeBitboard | ceilingBitboard;
 		
+		bitboardHash ^= maskBitboardHash ^ BoardHashes.moveHash(p);
+		mirroredBitboardHash ^= mirroredMaskBitboardHash ^ BoardHashes.mirroredMoveHash(p);
+		
+		maskBitboardHash ^= BoardHashes.cellHash(p);
+		mirroredMaskBitboardHash ^= BoardHashes.mirroredCellHash(p);
+		
 		long board = activeBitboard ^ maskBitboard;
 		if(bitboardContainsConnection(board)) {
 			
@@ -878,13 +1064,68 @@ public class Board {
 		
 		if(filledCellAmount == FULL_CELL_AMOUNT) outcome = BoardOutcome.DRAW;
 		
-		hash = bitboard;
+		hash = Math.min(bitboardHash, mirroredBitboardHash);
+		symmetrical = bitboardHash == mirroredBitboardHash;
+	}
+	
+	// also makes this board use the opening book and the search parameters of the given board
+	public void setupMoves(Board board) {
+		setOpeningBook(board.openingBook);
+		setSearchParameters(board.minimalChildCacheLookupDepth, board.searchDriver);
+		
+		while(filledCellAmount != 0) undoMove();
+		
+		int n = board.filledCellAmount;
+		for(int i = 0; i < n; i++) {
+			
+			int move = board.playedMoves[i];
+			playMove(move);
+		}
+	}
+	
+	// slightly changes the order in which moves are searched
+	// so that boards searching the same position in parallel
+	// explore different parts of the game tree first
+	public void varyMoveOrder(long seed) {
+		setMoveOrder(moveOrder.varied(seed));
+	}
+	
+	public void setMoveOrder(BoardMoveOrder moveOrder) {
+		this.moveOrder = moveOrder;
 		
-		long mirroredBitboard = Long.reverseBytes(bitboard) >>> MIRRORED_BITBOARD_SHIFT_AMOUNT;
-		if(mirroredBitboard < hash) hash = mirroredBitboard;
+		moveScoreConnectionOpportunityWeight = moveOrder.getConnectionOpportunityWeight();
+		moveScoreColumnForkWeight = moveOrder.getColumnForkWeight();
+		moveScoreImmediateThreatWeight = moveOrder.getImmediateThreatWeight();
+		moveScoreSoonThreatWeight = moveOrder.getSoonThreatWeight();
 		
-		mixedHash = mixedHash(hash);
-		symmetrical = bitboard == mirroredBitboard;
+		redMoveCellScores = moveOrder.getRedCellScores();
+		yellowMoveCellScores = moveOrder.getYellowCellScores();
+	}
+	
+	// whether killer moves and history scores are learned during the search,
+	// otherwise moves are only ordered by their static move scores
+	public void setMoveOrderingLearned(boolean moveOrderingLearned) {
+		this.moveOrderingLearned = moveOrderingLearned;
+	}
+	
+	// the depth after which the cache entries of all children are looked up before
+	// searching any of them and the driver choosing the windows of the root searches
+	public void setSearchParameters(int minimalChildCacheLookupDepth, BoardSearchDriver searchDriver) {
+		this.minimalChildCacheLookupDepth = minimalChildCacheLookupDepth;
+		this.searchDriver = searchDriver;
+	}
+	
+	public void setOpeningBook(BoardScoreBook openingBook) {
+		this.openingBook = openingBook;
+		this.openingBookMaximalDepth = openingBook.maximalDepth();
+	}
+	
+	public void abortEvaluation() {
+		evaluationAborted = true;
+	}
+	
+	public void clearEvaluationAbortion() {
+		evaluationAborted = false;
 	}
 	
 	public void undoMove() {
@@ -899,6 +1140,11 @@ public class Board {
 		
 		int moveCellY = cellColumnHeights[moveCellX];
 		
+		boolean redMove = (filledCellAmount & 1) == 0;
+		
+		redColumnHashes[moveCellX] = redColumnHashes[moveCellX] / COLUMN_HASH_BASE - (redMove ? ACTIVE_CELL_COLUMN_HASH_DIGIT : INACTIVE_CELL_COLUMN_HASH_DIGIT);
+		yellowColumnHashes[moveCellX] = yellowColumnHashes[moveCellX] / COLUMN_HASH_BASE - (redMove ? INACTIVE_CELL_COLUMN_HASH_DIGIT : ACTIVE_CELL_COLUMN_HASH_DIGIT);
+		
 		boolean isEven = (moveCellY & 1) == 0;
 		if(isEven) evenParityCellColumnAmount++;
 		else evenParityCellColumnAmount--;
@@ -910,8 +1156,12 @@ public class Board {
 		maskBitboard = entry.getMaskBitboard();
 		ceilingBitboard = entry.getCeilingBitboard();
 		
+		bitboardHash = entry.getBitboardHash();
+		maskBitboardHash = entry.getMaskBitboardHash();
+		mirroredBitboardHash = entry.getMirroredBitboardHash();
+		mirroredMaskBitboardHash = entry.getMirroredMaskBitboardHash();
+		
 		hash = entry.getHash();
-		mixedHash = entry.getMixedHash();
 	}
 	
 	public int cellColumnHeight(int cellColumnIndex) {
@@ -963,16 +1213,8 @@ public class Board {
 		return outcome;
 	}
 	
-	private static long mixedHash(long hash) {
-		hash ^= hash >>> HASH_MIX_SHIFT_AMOUNT;
-		
-		for(long m : HASH_MIX_MAGICS) {
-			
-			hash *= m;
-			hash ^= hash >>> HASH_MIX_SHIFT_AMOUNT;
-		}
-		
-		return hash;
+	public long getNodeAmount() {
+		return nodeAmount;
 	}
 	
 	private static boolean canRedWinInClaimEven(long redCells, long yellowCells, long currentYellowCells, long currentMask) {
@@ -1129,6 +1371,12 @@ public class Board {
 		return board;
 	}
 	
+	// changes whenever the way boards are hashed changes, which
+	// invalidates every score cache entry that was stored before
+	public static long hashFingerprint() {
+		return BoardHashes.FINGERPRINT;
+	}
+	
 	public static int getWidth() {
 		return WIDTH;
 	}
@@ -0,0 +1,16 @@
+package net.kite.board.evaluation.abort;
+
+// thrown to unwind an evaluation that is no longer needed
+public class BoardEvaluationAbort extends RuntimeException {
+	
+	public static final BoardEvaluationAbort INSTANCE = new BoardEvaluationAbort();
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final String MESSAGE = "The board evaluation was aborted!";
+	
+	private BoardEvaluationAbort() {
+		super(MESSAGE, null, false, false);
+	}
+	
+}
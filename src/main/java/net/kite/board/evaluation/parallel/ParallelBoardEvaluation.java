@@ -0,0 +1,128 @@
+package net.kite.board.evaluation.parallel;
+
+import net.kite.board.Board;
+import net.kite.board.evaluation.abort.BoardEvaluationAbort;
+import net.kite.board.score.cache.BoardScoreCache;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// evaluates a board using multiple threads that all search the same
+// position with slightly different move orders while sharing one
+// score cache (lazy SMP), the first thread to finish its search
+// provides the result and aborts all the other threads
+public class ParallelBoardEvaluation {
+	
+	private static final String THREAD_NAME = "Kite evaluation thread";
+	
+	private static final ExecutorService THREAD_POOL = Executors.newCachedThreadPool(ParallelBoardEvaluation::createThread);
+	
+	private static final int MISSING_SCORE = Integer.MIN_VALUE;
+	
+	private final BoardScoreCache scoreCache;
+	
+	private Board[] boards = new Board[0];
+	
+	public ParallelBoardEvaluation(BoardScoreCache scoreCache) {
+		this.scoreCache = scoreCache;
+	}
+	
+	public int evaluate(Board board, int threadAmount) {
+		ensureBoardAmount(threadAmount);
+		
+		AtomicInteger result = new AtomicInteger(MISSING_SCORE);
+		
+		int helperAmount = threadAmount - 1;
+		Future<?>[] helpers = new Future<?>[helperAmount];
+		
+		for(int i = 0; i < threadAmount; i++) boards[i].setupMoves(board);
+		
+		for(int i = 0; i < helperAmount; i++) {
+			
+			int boardIndex = i + 1;
+			helpers[i] = THREAD_POOL.submit(() -> search(boardIndex, threadAmount, result));
+		}
+		
+		search(0, threadAmount, result);
+		
+		awaitHelpers(helpers);
+		
+		for(int i = 0; i < threadAmount; i++) boards[i].clearEvaluationAbortion();
+		
+		return result.get();
+	}
+	
+	private void search(int boardIndex, int threadAmount, AtomicInteger result) {
+		Board board = boards[boardIndex];
+		
+		try {
+			
+			int score = board.evaluate();
+			if(!result.compareAndSet(MISSING_SCORE, score)) return;
+			
+			for(int i = 0; i < threadAmount; i++) {
+				
+				if(i != boardIndex) boards[i].abortEvaluation();
+			}
+			
+		} catch(BoardEvaluationAbort abort) {
+			
+			// another thread has already finished
+		}
+	}
+	
+	private void ensureBoardAmount(int boardAmount) {
+		int n = boards.length;
+		if(n >= boardAmount) return;
+		
+		Board[] boards = new Board[boardAmount];
+		System.arraycopy(this.boards, 0, boards, 0, n);
+		
+		for(int i = n; i < boardAmount; i++) {
+			
+			Board board = new Board(scoreCache);
+			if(i != 0) board.varyMoveOrder(i);
+			
+			boards[i] = board;
+		}
+		
+		this.boards = boards;
+	}
+	
+	private static void awaitHelpers(Future<?>[] helpers) {
+		boolean interrupted = false;
+		
+		for(Future<?> helper : helpers) {
+			
+			while(true) {
+				
+				try {
+					
+					helper.get();
+					break;
+					
+				} catch(InterruptedException exception) {
+					
+					interrupted = true;
+					
+				} catch(ExecutionException exception) {
+					
+					throw new IllegalStateException("A parallel board evaluation failed!", exception.getCause());
+				}
+			}
+		}
+		
+		if(interrupted) Thread.currentThread().interrupt();
+	}
+	
+	private static Thread createThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, THREAD_NAME);
+		thread.setDaemon(true);
+		
+		return thread;
+	}
+	
+}
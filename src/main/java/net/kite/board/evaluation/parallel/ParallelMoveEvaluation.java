@@ -0,0 +1,116 @@
+package net.kite.board.evaluation.parallel;
+
+import net.kite.board.Board;
+import net.kite.board.score.cache.BoardScoreCache;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// evaluates the moves of a board using multiple threads where each
+// thread repeatedly takes the next unevaluated move (in the usual move
+// order) and searches it on its own board, all threads share one score
+// cache as well as the currently best move score so that moves that
+// are searched later (or are still being searched) only need to be
+// evaluated up to the point where they can no longer be relevant
+public class ParallelMoveEvaluation {
+	
+	private static final int WIDTH = 7;
+	
+	private static final int[] ORDERED_MOVE_COLUMN_INDICES = new int[] {
+			3, 2, 4, 1, 5, 0, 6
+	};
+	
+	private static final ForkJoinPool THREAD_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+	
+	private static final int MISSING_MOVE_SCORE = Integer.MIN_VALUE;
+	private static final int UNBOUNDED_MINIMAL_SCORE = Integer.MIN_VALUE + 1;
+	
+	private final BoardScoreCache scoreCache;
+	
+	private Board[] boards = new Board[0];
+	
+	public ParallelMoveEvaluation(BoardScoreCache scoreCache) {
+		this.scoreCache = scoreCache;
+	}
+	
+	// evaluates all legal moves exactly, illegal moves are given the score Integer.MIN_VALUE
+	public void evaluateMoves(Board board, int[] moveScores, int threadAmount) {
+		evaluateMoves(board, moveScores, threadAmount, Integer.MAX_VALUE);
+	}
+	
+	// evaluates all legal moves but only those that score at most maximalScoreLoss below
+	// the best move are evaluated exactly, all other legal moves are given a lower score
+	// and illegal moves are given the score Integer.MIN_VALUE, returns the best move score
+	public int evaluateMoves(Board board, int[] moveScores, int threadAmount, int maximalScoreLoss) {
+		if(threadAmount > WIDTH) threadAmount = WIDTH;
+		
+		ensureBoardAmount(threadAmount);
+		
+		AtomicInteger nextMoveIndex = new AtomicInteger();
+		AtomicInteger minimalScore = new AtomicInteger(UNBOUNDED_MINIMAL_SCORE);
+		
+		int helperAmount = threadAmount - 1;
+		ForkJoinTask<?>[] helpers = new ForkJoinTask<?>[helperAmount];
+		
+		for(int i = 0; i < threadAmount; i++) boards[i].setupMoves(board);
+		
+		for(int i = 0; i < helperAmount; i++) {
+			
+			Board helperBoard = boards[i + 1];
+			helpers[i] = THREAD_POOL.submit(() -> evaluateMoves(helperBoard, moveScores, nextMoveIndex, minimalScore, maximalScoreLoss));
+		}
+		
+		evaluateMoves(boards[0], moveScores, nextMoveIndex, minimalScore, maximalScoreLoss);
+		
+		for(ForkJoinTask<?> helper : helpers) helper.join();
+		
+		int optimalMoveScore = MISSING_MOVE_SCORE;
+		
+		for(int moveScore : moveScores) {
+			
+			if(moveScore > optimalMoveScore) optimalMoveScore = moveScore;
+		}
+		
+		return optimalMoveScore;
+	}
+	
+	private void evaluateMoves(Board board, int[] moveScores, AtomicInteger nextMoveIndex, AtomicInteger minimalScore, int maximalScoreLoss) {
+		while(true) {
+			
+			int moveIndex = nextMoveIndex.getAndIncrement();
+			if(moveIndex >= WIDTH) return;
+			
+			int moveColumnIndex = ORDERED_MOVE_COLUMN_INDICES[moveIndex];
+			
+			if(!board.moveLegal(moveColumnIndex)) {
+				
+				moveScores[moveColumnIndex] = MISSING_MOVE_SCORE;
+				continue;
+			}
+			
+			int moveScore = board.evaluateMove(moveColumnIndex, minimalScore);
+			moveScores[moveColumnIndex] = moveScore;
+			
+			if(maximalScoreLoss == Integer.MAX_VALUE) continue;
+			
+			// scores above the shared minimal score are exact and
+			// can therefore be used to tighten the shared bound
+			int s = moveScore - maximalScoreLoss - 1;
+			if(moveScore > minimalScore.get()) minimalScore.accumulateAndGet(s, Math::max);
+		}
+	}
+	
+	private void ensureBoardAmount(int boardAmount) {
+		int n = boards.length;
+		if(n >= boardAmount) return;
+		
+		Board[] boards = new Board[boardAmount];
+		System.arraycopy(this.boards, 0, boards, 0, n);
+		
+		for(int i = n; i < boardAmount; i++) boards[i] = new Board(scoreCache);
+		
+		this.boards = boards;
+	}
+	
+}
@@ -0,0 +1,164 @@
+package net.kite.board.hash;
+
+import net.kite.board.bit.Bitboards;
+
+// zobrist keys for the 49 bitboard cells that can be set in a board's bitboard
+// (six cells and the ceiling of each column), the hash of a bitboard is the xor
+// of the keys of its set cells, the keys are linearly independent (over gf(2))
+// which makes hashing a bijection of bitboards onto 49-bit values so that score
+// caches can still verify their entries using only a few bits, as hashing is
+// linear boards can update their hash and the hash of their mirrored bitboard
+// with a few xors per move instead of hashing their whole bitboard again
+public class BoardHashes {
+	
+	public static final long EMPTY;
+	
+	// changes whenever the keys change
+	public static final long FINGERPRINT;
+	
+	private static final long[] CELL_HASHES;
+	private static final long[] MIRRORED_CELL_HASHES;
+	
+	private static final long[] MOVE_HASHES;
+	private static final long[] MIRRORED_MOVE_HASHES;
+	
+	private static final int WIDTH = 7;
+	
+	private static final int BITBOARD_HEIGHT = 8;
+	private static final int HASHED_CELL_COLUMN_HEIGHT = 7;
+	
+	private static final int HASH_BIT_AMOUNT = 49;
+	private static final long HASH_MASK = 0x0001FFFFFFFFFFFFL;
+	
+	private static final long KEY_SEED = 0x4B4954454B495445L;
+	private static final long KEY_SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+	
+	private static final long[] KEY_MIX_MAGICS = new long[] {
+			0xFF51AFD7ED558CCDL,
+			0xC4CEB9FE1A85EC53L
+	};
+	
+	private static final int KEY_MIX_SHIFT_AMOUNT = 33;
+	
+	private static final int FINGERPRINT_ROTATION_AMOUNT = 7;
+	
+	static {
+		int l = WIDTH * BITBOARD_HEIGHT;
+		
+		CELL_HASHES = new long[l];
+		MIRRORED_CELL_HASHES = new long[l];
+		
+		MOVE_HASHES = new long[l];
+		MIRRORED_MOVE_HASHES = new long[l];
+		
+		// a key is only used if it can not be written as the xor of earlier
+		// keys, each basis entry is the reduced form of a key whose highest
+		// set bit is the index of the entry
+		long[] basis = new long[HASH_BIT_AMOUNT];
+		long seed = KEY_SEED;
+		
+		long fingerprint = 0;
+		
+		for(int x = 0; x < WIDTH; x++) {
+			for(int y = 0; y < HASHED_CELL_COLUMN_HEIGHT; y++) {
+				
+				long key;
+				
+				do {
+					
+					seed += KEY_SEED_INCREMENT;
+					key = mixedKey(seed);
+					
+				} while(!independentKey(key, basis));
+				
+				CELL_HASHES[BITBOARD_HEIGHT * x + y] = key;
+				fingerprint = Long.rotateLeft(fingerprint, FINGERPRINT_ROTATION_AMOUNT) ^ key;
+			}
+		}
+		
+		for(int x = 0; x < WIDTH; x++) {
+			
+			int mirroredX = WIDTH - 1 - x;
+			
+			for(int y = 0; y < HASHED_CELL_COLUMN_HEIGHT; y++) {
+				
+				int p = BITBOARD_HEIGHT * x + y;
+				MIRRORED_CELL_HASHES[p] = CELL_HASHES[BITBOARD_HEIGHT * mirroredX + y];
+			}
+			
+			// a move clears the column's ceiling cell and sets the cell above it
+			for(int y = 0; y < HASHED_CELL_COLUMN_HEIGHT - 1; y++) {
+				
+				int p = BITBOARD_HEIGHT * x + y;
+				
+				MOVE_HASHES[p] = CELL_HASHES[p] ^ CELL_HASHES[p + 1];
+				MIRRORED_MOVE_HASHES[p] = MIRRORED_CELL_HASHES[p] ^ MIRRORED_CELL_HASHES[p + 1];
+			}
+		}
+		
+		EMPTY = hash(Bitboards.EMPTY_CEILING);
+		FINGERPRINT = fingerprint;
+	}
+	
+	public static long cellHash(int cellPosition) {
+		return CELL_HASHES[cellPosition];
+	}
+	
+	public static long mirroredCellHash(int cellPosition) {
+		return MIRRORED_CELL_HASHES[cellPosition];
+	}
+	
+	// the change of a bitboard's hash (apart from switching
+	// the player at turn) caused by a move to the given cell
+	public static long moveHash(int cellPosition) {
+		return MOVE_HASHES[cellPosition];
+	}
+	
+	public static long mirroredMoveHash(int cellPosition) {
+		return MIRRORED_MOVE_HASHES[cellPosition];
+	}
+	
+	public static long hash(long bitboard) {
+		long hash = 0;
+		
+		while(bitboard != 0) {
+			
+			int p = Long.numberOfTrailingZeros(bitboard);
+			bitboard &= bitboard - 1;
+			
+			hash ^= CELL_HASHES[p];
+		}
+		
+		return hash;
+	}
+	
+	private static long mixedKey(long seed) {
+		for(long m : KEY_MIX_MAGICS) {
+			
+			seed ^= seed >>> KEY_MIX_SHIFT_AMOUNT;
+			seed *= m;
+		}
+		
+		seed ^= seed >>> KEY_MIX_SHIFT_AMOUNT;
+		return seed & HASH_MASK;
+	}
+	
+	private static boolean independentKey(long key, long[] basis) {
+		while(key != 0) {
+			
+			int i = Long.SIZE - 1 - Long.numberOfLeadingZeros(key);
+			
+			long b = basis[i];
+			if(b == 0) {
+				
+				basis[i] = key;
+				return true;
+			}
+			
+			key ^= b;
+		}
+		
+		return false;
+	}
+	
+}
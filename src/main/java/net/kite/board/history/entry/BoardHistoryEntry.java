@@ -9,13 +9,18 @@ public class BoardHistoryEntry {
 	private long maskBitboard;
 	private long ceilingBitboard;
 	
+	private long bitboardHash;
+	private long maskBitboardHash;
+	private long mirroredBitboardHash;
+	private long mirroredMaskBitboardHash;
+	
 	private long hash;
-	private long mixedHash;
 	
 	public void fill(
 			boolean symmetrical,
 			long bitboard, long activeBitboard, long maskBitboard, long ceilingBitboard,
-			long hash, long mixedHash
+			long bitboardHash, long maskBitboardHash, long mirroredBitboardHash, long mirroredMaskBitboardHash,
+			long hash
 	) {
 		this.symmetrical = symmetrical;
 		
@@ -24,8 +29,12 @@ public class BoardHistoryEntry {
 		this.maskBitboard = maskBitboard;
 		this.ceilingBitboard = ceilingBitboard;
 		
+		this.bitboardHash = bitboardHash;
+		this.maskBitboardHash = maskBitboardHash;
+		this.mirroredBitboardHash = mirroredBitboardHash;
+		this.mirroredMaskBitboardHash = mirroredMaskBitboardHash;
+		
 		this.hash = hash;
-		this.mixedHash = mixedHash;
 	}
 	
 	public boolean isSymmetrical() {
@@ -48,12 +57,24 @@ public class BoardHistoryEntry {
 		return ceilingBitboard;
 	}
 	
-	public long getHash() {
-		return hash;
+	public long getBitboardHash() {
+		return bitboardHash;
+	}
+	
+	public long getMaskBitboardHash() {
+		return maskBitboardHash;
 	}
 	
-	public long getMixedHash() {
-		return mixedHash;
+	public long getMirroredBitboardHash() {
+		return mirroredBitboardHash;
+	}
+	
+	public long getMirroredMaskBitboardHash() {
+		return mirroredMaskBitboardHash;
+	}
+	
+	public long getHash() {
+		return hash;
 	}
 	
 }
@@ -0,0 +1,105 @@
+package net.kite.board.order;
+
+import java.util.Random;
+
+// the weights with which the features of a move add up to its move score (moves with
+// larger move scores are searched first) and the cell scores of both players, which are
+// indexed by bitboard position (the lower six of every eight positions are the cells of a
+// column), move orders only change how fast boards are evaluated but never their scores,
+// the default move order was tuned by hand while other move orders can be derived from
+// a corpus of boards by the move order tuner
+public class BoardMoveOrder {
+	
+	public static final BoardMoveOrder DEFAULT = new BoardMoveOrder(
+			218, 233, 465, 602,
+			new int[] {
+					 15,  44,  23, 175,  68, 479,   0,   0,
+					 93, 125,  97, 179, 209, 309,   0,   0,
+					123, 204, 501, 389, 197, 421,   0,   0,
+					337, 385, 351, 289, 428, 450,   0,   0,
+					123, 204, 501, 389, 197, 421,   0,   0,
+					 93, 125,  97, 179, 209, 309,   0,   0,
+					 15,  44,  23, 175,  68, 479
+			},
+			new int[] {
+					 66, 149,  10, 196, 141, 463,   0,   0,
+					 33, 176, 242, 268,  31, 469,   0,   0,
+					132, 285, 257, 419, 219, 375,   0,   0,
+					177, 414, 599, 583, 516, 513,   0,   0,
+					132, 285, 257, 419, 219, 375,   0,   0,
+					 33, 176, 242, 268,  31, 469,   0,   0,
+					 66, 149,  10, 196, 141, 463
+			}
+	);
+	
+	public static final int CELL_SCORE_AMOUNT = 54;
+	
+	private static final int MAXIMAL_CELL_SCORE_VARIATION = 256;
+	
+	private final int connectionOpportunityWeight;
+	private final int columnForkWeight;
+	private final int immediateThreatWeight;
+	private final int soonThreatWeight;
+	
+	private final int[] redCellScores;
+	private final int[] yellowCellScores;
+	
+	public BoardMoveOrder(int connectionOpportunityWeight, int columnForkWeight, int immediateThreatWeight, int soonThreatWeight, int[] redCellScores, int[] yellowCellScores) {
+		if(redCellScores.length != CELL_SCORE_AMOUNT || yellowCellScores.length != CELL_SCORE_AMOUNT) {
+			
+			String errorMessage = String.format("There must be exactly %d cell scores per player!", CELL_SCORE_AMOUNT);
+			throw new IllegalArgumentException(errorMessage);
+		}
+		
+		this.connectionOpportunityWeight = connectionOpportunityWeight;
+		this.columnForkWeight = columnForkWeight;
+		this.immediateThreatWeight = immediateThreatWeight;
+		this.soonThreatWeight = soonThreatWeight;
+		
+		this.redCellScores = redCellScores.clone();
+		this.yellowCellScores = yellowCellScores.clone();
+	}
+	
+	// the same move order with random amounts added to the cell scores so
+	// that boards searching the same position in parallel using varied
+	// move orders explore different parts of the game tree first
+	public BoardMoveOrder varied(long seed) {
+		Random random = new Random(seed);
+		
+		int[] redCellScores = new int[CELL_SCORE_AMOUNT];
+		int[] yellowCellScores = new int[CELL_SCORE_AMOUNT];
+		
+		for(int i = 0; i < CELL_SCORE_AMOUNT; i++) {
+			
+			redCellScores[i] = this.redCellScores[i] + random.nextInt(MAXIMAL_CELL_SCORE_VARIATION);
+			yellowCellScores[i] = this.yellowCellScores[i] + random.nextInt(MAXIMAL_CELL_SCORE_VARIATION);
+		}
+		
+		return new BoardMoveOrder(connectionOpportunityWeight, columnForkWeight, immediateThreatWeight, soonThreatWeight, redCellScores, yellowCellScores);
+	}
+	
+	public int getConnectionOpportunityWeight() {
+		return connectionOpportunityWeight;
+	}
+	
+	public int getColumnForkWeight() {
+		return columnForkWeight;
+	}
+	
+	public int getImmediateThreatWeight() {
+		return immediateThreatWeight;
+	}
+	
+	public int getSoonThreatWeight() {
+		return soonThreatWeight;
+	}
+	
+	public int[] getRedCellScores() {
+		return redCellScores.clone();
+	}
+	
+	public int[] getYellowCellScores() {
+		return yellowCellScores.clone();
+	}
+	
+}
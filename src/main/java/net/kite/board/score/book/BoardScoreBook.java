@@ -0,0 +1,18 @@
+package net.kite.board.score.book;
+
+import net.kite.board.Board;
+
+// a table of precomputed scores of boards early in the game (an opening book),
+// boards only look up boards with at most the maximal depth of played moves
+// and never call a book whose maximal depth is negative
+public interface BoardScoreBook {
+	
+	int MISSING_BOARD_SCORE = Integer.MIN_VALUE;
+	
+	// the score of the board or the missing board score
+	// if the book does not contain the board
+	int boardScore(Board board);
+	
+	int maximalDepth();
+	
+}
@@ -0,0 +1,47 @@
+package net.kite.board.score.book.chained;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.BoardScoreBook;
+
+// looks up boards in multiple books in order and returns the first score that is
+// found, for example to complement a book with a deeper but less complete one
+public class ChainedBoardScoreBook implements BoardScoreBook {
+	
+	private final BoardScoreBook[] books;
+	
+	private final int maximalDepth;
+	
+	public ChainedBoardScoreBook(BoardScoreBook[] books) {
+		this.books = books.clone();
+		
+		int maximalDepth = -1;
+		for(BoardScoreBook book : books) {
+			
+			int d = book.maximalDepth();
+			if(d > maximalDepth) maximalDepth = d;
+		}
+		
+		this.maximalDepth = maximalDepth;
+	}
+	
+	@Override
+	public int boardScore(Board board) {
+		int n = board.playedMoveAmount();
+		
+		for(BoardScoreBook book : books) {
+			
+			if(n > book.maximalDepth()) continue;
+			
+			int score = book.boardScore(board);
+			if(score != MISSING_BOARD_SCORE) return score;
+		}
+		
+		return MISSING_BOARD_SCORE;
+	}
+	
+	@Override
+	public int maximalDepth() {
+		return maximalDepth;
+	}
+	
+}
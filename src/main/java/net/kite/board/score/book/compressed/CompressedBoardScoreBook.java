@@ -0,0 +1,302 @@
+package net.kite.board.score.book.compressed;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.BoardScoreBook;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// a book that stores each of its boards in exactly one entry, the column hashes
+// of the boards are mapped onto the entries by a minimal perfect hash function
+// which consists of multiple levels of bits, a column hash is hashed to one bit
+// per level and belongs to the first level whose bit is set, the number of set
+// bits before that bit is the index of its entry, an entry holds the board's
+// score and a fingerprint of its column hash (as boards that are not contained
+// in the book are also mapped onto some entry) packed into a few bits, the book
+// is used as it is stored so it can be mapped from a file without decoding it,
+// a book may only contain boards from a minimal depth on so that books can be
+// split into shards of consecutive depths, the header also holds a checksum of
+// everything after it which is only verified on demand
+public class CompressedBoardScoreBook implements BoardScoreBook {
+	
+	public static final int MAGIC_NUMBER = 0x4D424F4B;
+	public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	
+	static final int FORMAT_VERSION = 2;
+	
+	static final int HEADER_BYTE_SIZE = 40;
+	static final int CHECKSUM_OFFSET = 32;
+	static final int LEVEL_BYTE_SIZE = 8;
+	
+	// a rank sample holds the number of set bits before every eighth word
+	static final int LOGARITHMIC_RANK_SAMPLE_WORD_AMOUNT = 3;
+	
+	static final int SCORE_BIT_AMOUNT = 6;
+	static final int SCORE_OFFSET = 32;
+	
+	// a board that is not contained in the book matches the fingerprint of the
+	// entry it is mapped onto with a chance of one in two to the power of the
+	// fingerprint size and is then given that entry's score, which is why
+	// smaller fingerprints are not allowed
+	public static final int SMALLEST_FINGERPRINT_BIT_AMOUNT = 8;
+	public static final int LARGEST_FINGERPRINT_BIT_AMOUNT = 16;
+	
+	private static final int LARGEST_MAXIMAL_DEPTH = 42;
+	
+	private static final int LOGARITHMIC_WORD_BIT_AMOUNT = 6;
+	private static final int LOGARITHMIC_WORD_BYTE_SIZE = 3;
+	
+	private static final long LEVEL_SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+	private static final long FINGERPRINT_SEED = 0x4B4954454B495445L;
+	
+	private static final long[] MIX_MAGICS = new long[] {
+			0xFF51AFD7ED558CCDL,
+			0xC4CEB9FE1A85EC53L
+	};
+	
+	private static final int MIX_SHIFT_AMOUNT = 33;
+	
+	private final ByteBuffer buffer;
+	
+	private final int entryAmount;
+	private final int minimalDepth;
+	private final int maximalDepth;
+	
+	private final int entryBitAmount;
+	private final long entryMask;
+	private final long fingerprintMask;
+	
+	private final int[] levelWordOffsets;
+	private final long[] levelBitAmounts;
+	
+	private final int wordsOffset;
+	private final int rankSamplesOffset;
+	private final int entriesOffset;
+	
+	public CompressedBoardScoreBook(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer.duplicate().order(BYTE_ORDER);
+		
+		if(this.buffer.capacity() < HEADER_BYTE_SIZE) throw new IOException("The opening book file is incomplete!");
+		if(this.buffer.getInt(0) != MAGIC_NUMBER) throw new IOException("The file is not a compressed opening book file!");
+		
+		int formatVersion = this.buffer.getInt(4);
+		if(formatVersion != FORMAT_VERSION) {
+			
+			String errorMessage = String.format("The compressed opening book file has format version %d but only version %d is supported!", formatVersion, FORMAT_VERSION);
+			throw new IOException(errorMessage);
+		}
+		
+		this.entryAmount = this.buffer.getInt(8);
+		this.maximalDepth = this.buffer.getInt(12);
+		
+		int fingerprintBitAmount = this.buffer.getInt(16);
+		int levelAmount = this.buffer.getInt(20);
+		int wordAmount = this.buffer.getInt(24);
+		
+		this.minimalDepth = this.buffer.getInt(28);
+		
+		if(entryAmount < 0 || levelAmount < 0 || wordAmount < 0) throw new IOException("The compressed opening book file has an invalid header!");
+		if(maximalDepth < 0 || maximalDepth > LARGEST_MAXIMAL_DEPTH) throw new IOException("The compressed opening book file has an invalid maximal depth!");
+		if(minimalDepth < 0 || minimalDepth > maximalDepth) throw new IOException("The compressed opening book file has an invalid minimal depth!");
+		if(fingerprintBitAmount < SMALLEST_FINGERPRINT_BIT_AMOUNT || fingerprintBitAmount > LARGEST_FINGERPRINT_BIT_AMOUNT) throw new IOException("The compressed opening book file has an invalid fingerprint size!");
+		
+		this.entryBitAmount = SCORE_BIT_AMOUNT + fingerprintBitAmount;
+		this.entryMask = (1L << entryBitAmount) - 1;
+		this.fingerprintMask = (1L << fingerprintBitAmount) - 1;
+		
+		this.levelWordOffsets = new int[levelAmount];
+		this.levelBitAmounts = new long[levelAmount];
+		
+		this.wordsOffset = HEADER_BYTE_SIZE + levelAmount * LEVEL_BYTE_SIZE;
+		this.rankSamplesOffset = wordsOffset + (wordAmount << LOGARITHMIC_WORD_BYTE_SIZE);
+		this.entriesOffset = rankSamplesOffset + rankSampleByteSize(wordAmount);
+		
+		long byteSize = (long) entriesOffset + entriesByteSize(entryAmount, entryBitAmount);
+		if(this.buffer.capacity() != byteSize) throw new IOException("The compressed opening book file has an unexpected size!");
+		
+		for(int i = 0; i < levelAmount; i++) {
+			
+			int p = HEADER_BYTE_SIZE + i * LEVEL_BYTE_SIZE;
+			
+			int wordOffset = this.buffer.getInt(p);
+			int levelWordAmount = this.buffer.getInt(p + 4);
+			
+			if(wordOffset < 0 || levelWordAmount <= 0 || wordOffset + levelWordAmount > wordAmount) throw new IOException("The compressed opening book file has an invalid level!");
+			
+			levelWordOffsets[i] = wordOffset;
+			levelBitAmounts[i] = (long) levelWordAmount << LOGARITHMIC_WORD_BIT_AMOUNT;
+		}
+	}
+	
+	@Override
+	public int boardScore(Board board) {
+		int n = board.playedMoveAmount();
+		if(n < minimalDepth || n > maximalDepth) return MISSING_BOARD_SCORE;
+		
+		long columnHash = board.columnHash();
+		return score(columnHash);
+	}
+	
+	public int score(long columnHash) {
+		int index = index(columnHash);
+		if(index < 0 || index >= entryAmount) return MISSING_BOARD_SCORE;
+		
+		long entry = entry(index);
+		if(entry >>> SCORE_BIT_AMOUNT != fingerprint(columnHash)) return MISSING_BOARD_SCORE;
+		
+		int score = (int) (entry & ((1 << SCORE_BIT_AMOUNT) - 1));
+		return score - SCORE_OFFSET;
+	}
+	
+	// the index of the entry the column hash is mapped onto or -1 if none
+	int index(long columnHash) {
+		int levelAmount = levelWordOffsets.length;
+		
+		for(int level = 0; level < levelAmount; level++) {
+			
+			long p = levelPosition(columnHash, level, levelBitAmounts[level]);
+			long bit = ((long) levelWordOffsets[level] << LOGARITHMIC_WORD_BIT_AMOUNT) + p;
+			
+			int wordIndex = (int) (bit >>> LOGARITHMIC_WORD_BIT_AMOUNT);
+			long word = word(wordIndex);
+			
+			long mask = 1L << bit;
+			if((word & mask) == 0) continue;
+			
+			int rankSampleIndex = wordIndex >>> LOGARITHMIC_RANK_SAMPLE_WORD_AMOUNT;
+			int rank = buffer.getInt(rankSamplesOffset + rankSampleIndex * Integer.BYTES);
+			
+			for(int i = rankSampleIndex << LOGARITHMIC_RANK_SAMPLE_WORD_AMOUNT; i < wordIndex; i++) {
+				
+				rank += Long.bitCount(word(i));
+			}
+			
+			return rank + Long.bitCount(word & (mask - 1));
+		}
+		
+		return -1;
+	}
+	
+	long fingerprint(long columnHash) {
+		return mixed(columnHash ^ FINGERPRINT_SEED) & fingerprintMask;
+	}
+	
+	private long word(int wordIndex) {
+		return buffer.getLong(wordsOffset + (wordIndex << LOGARITHMIC_WORD_BYTE_SIZE));
+	}
+	
+	private long entry(int index) {
+		long bit = (long) index * entryBitAmount;
+		
+		int wordIndex = (int) (bit >>> LOGARITHMIC_WORD_BIT_AMOUNT);
+		int shiftAmount = (int) (bit & (Long.SIZE - 1));
+		
+		int p = entriesOffset + (wordIndex << LOGARITHMIC_WORD_BYTE_SIZE);
+		
+		long entry = buffer.getLong(p) >>> shiftAmount;
+		if(shiftAmount + entryBitAmount > Long.SIZE) entry |= buffer.getLong(p + Long.BYTES) << (Long.SIZE - shiftAmount);
+		
+		return entry & entryMask;
+	}
+	
+	public int minimalDepth() {
+		return minimalDepth;
+	}
+	
+	@Override
+	public int maximalDepth() {
+		return maximalDepth;
+	}
+	
+	// the crc32 of everything after the header
+	public int checksum() {
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.slice(HEADER_BYTE_SIZE, buffer.capacity() - HEADER_BYTE_SIZE));
+		
+		return (int) checksum.getValue();
+	}
+	
+	public int getEntryAmount() {
+		return entryAmount;
+	}
+	
+	public int getEntryBitAmount() {
+		return entryBitAmount;
+	}
+	
+	// maps a compressed book file and checks its checksum
+	public static CompressedBoardScoreBook verifiedFromFile(Path path) throws IOException {
+		CompressedBoardScoreBook book = fromFile(path);
+		if(book.buffer.getInt(CHECKSUM_OFFSET) != book.checksum()) throw new IOException("The opening book file is corrupted!");
+		
+		return book;
+	}
+	
+	// maps a compressed book file, the mapping is read-only
+	// and stays valid after the channel has been closed
+	public static CompressedBoardScoreBook fromFile(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			long byteSize = channel.size();
+			if(byteSize > Integer.MAX_VALUE) throw new IOException("The compressed opening book file is too large!");
+			
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, byteSize);
+			return new CompressedBoardScoreBook(buffer);
+		}
+	}
+	
+	// whether the file starts like a compressed book file
+	public static boolean compressedFile(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			ByteBuffer magicNumber = ByteBuffer.allocate(Integer.BYTES).order(BYTE_ORDER);
+			
+			while(magicNumber.hasRemaining()) {
+				
+				if(channel.read(magicNumber, magicNumber.position()) < 0) return false;
+			}
+			
+			return magicNumber.getInt(0) == MAGIC_NUMBER;
+		}
+	}
+	
+	// the position of the column hash's bit within a level of the given size
+	static long levelPosition(long columnHash, int level, long levelBitAmount) {
+		long hash = mixed(columnHash + (level + 1) * LEVEL_SEED_INCREMENT);
+		
+		return ((hash >>> Integer.SIZE) * levelBitAmount) >>> Integer.SIZE;
+	}
+	
+	static int rankSampleByteSize(int wordAmount) {
+		int rankSampleAmount = (wordAmount >>> LOGARITHMIC_RANK_SAMPLE_WORD_AMOUNT) + 1;
+		int byteSize = rankSampleAmount * Integer.BYTES;
+		
+		// keeps the entries aligned to words
+		return (byteSize + Long.BYTES - 1) & -Long.BYTES;
+	}
+	
+	// one additional word so that the last entry can always be read using two words
+	static long entriesByteSize(int entryAmount, int entryBitAmount) {
+		long bitAmount = (long) entryAmount * entryBitAmount;
+		long wordAmount = (bitAmount >>> LOGARITHMIC_WORD_BIT_AMOUNT) + 2;
+		
+		return wordAmount << LOGARITHMIC_WORD_BYTE_SIZE;
+	}
+	
+	private static long mixed(long hash) {
+		for(long m : MIX_MAGICS) {
+			
+			hash ^= hash >>> MIX_SHIFT_AMOUNT;
+			hash *= m;
+		}
+		
+		hash ^= hash >>> MIX_SHIFT_AMOUNT;
+		return hash;
+	}
+	
+}
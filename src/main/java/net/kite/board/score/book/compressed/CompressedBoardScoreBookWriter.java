@@ -0,0 +1,232 @@
+package net.kite.board.score.book.compressed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// builds compressed books from the column hashes and scores of their boards,
+// each level gets about twice as many bits as there are column hashes left,
+// the bits of column hashes that do not share their bit with another column
+// hash are set and the other column hashes are passed on to the next level
+public class CompressedBoardScoreBookWriter {
+	
+	public static final int DEFAULT_FINGERPRINT_BIT_AMOUNT = 8;
+	
+	private static final double LEVEL_BITS_PER_COLUMN_HASH = 2.0;
+	
+	// the number of levels in a row that may place no column hash before
+	// the column hashes are considered to contain duplicates
+	private static final int MAXIMAL_UNPRODUCTIVE_LEVEL_AMOUNT = 8;
+	
+	private static final int LOGARITHMIC_WORD_BIT_AMOUNT = 6;
+	
+	private final long[] columnHashes;
+	private final byte[] scores;
+	
+	private final int minimalDepth;
+	private final int maximalDepth;
+	private final int fingerprintBitAmount;
+	
+	// the column hashes need to be distinct
+	public CompressedBoardScoreBookWriter(long[] columnHashes, byte[] scores, int minimalDepth, int maximalDepth, int fingerprintBitAmount) {
+		if(columnHashes.length != scores.length) throw new IllegalArgumentException("There must be exactly one score per column hash!");
+		
+		if(fingerprintBitAmount < CompressedBoardScoreBook.SMALLEST_FINGERPRINT_BIT_AMOUNT || fingerprintBitAmount > CompressedBoardScoreBook.LARGEST_FINGERPRINT_BIT_AMOUNT) {
+			
+			String errorMessage = String.format("The fingerprint size must be between %d and %d bits!", CompressedBoardScoreBook.SMALLEST_FINGERPRINT_BIT_AMOUNT, CompressedBoardScoreBook.LARGEST_FINGERPRINT_BIT_AMOUNT);
+			throw new IllegalArgumentException(errorMessage);
+		}
+		
+		this.columnHashes = columnHashes;
+		this.scores = scores;
+		
+		this.minimalDepth = minimalDepth;
+		this.maximalDepth = maximalDepth;
+		this.fingerprintBitAmount = fingerprintBitAmount;
+	}
+	
+	public ByteBuffer write() {
+		int n = columnHashes.length;
+		
+		List<long[]> levels = levels();
+		int levelAmount = levels.size();
+		
+		int wordAmount = 0;
+		for(long[] level : levels) wordAmount += level.length;
+		
+		int entryBitAmount = CompressedBoardScoreBook.SCORE_BIT_AMOUNT + fingerprintBitAmount;
+		
+		int wordsOffset = CompressedBoardScoreBook.HEADER_BYTE_SIZE + levelAmount * CompressedBoardScoreBook.LEVEL_BYTE_SIZE;
+		int rankSamplesOffset = wordsOffset + wordAmount * Long.BYTES;
+		int entriesOffset = rankSamplesOffset + CompressedBoardScoreBook.rankSampleByteSize(wordAmount);
+		
+		long byteSize = entriesOffset + CompressedBoardScoreBook.entriesByteSize(n, entryBitAmount);
+		if(byteSize > Integer.MAX_VALUE) throw new IllegalArgumentException("The book would be too large!");
+		
+		ByteBuffer buffer = ByteBuffer.allocate((int) byteSize).order(CompressedBoardScoreBook.BYTE_ORDER);
+		
+		buffer.putInt(0, CompressedBoardScoreBook.MAGIC_NUMBER);
+		buffer.putInt(4, CompressedBoardScoreBook.FORMAT_VERSION);
+		buffer.putInt(8, n);
+		buffer.putInt(12, maximalDepth);
+		buffer.putInt(16, fingerprintBitAmount);
+		buffer.putInt(20, levelAmount);
+		buffer.putInt(24, wordAmount);
+		buffer.putInt(28, minimalDepth);
+		
+		int wordOffset = 0;
+		int rank = 0;
+		
+		for(int i = 0; i < levelAmount; i++) {
+			
+			long[] level = levels.get(i);
+			
+			int p = CompressedBoardScoreBook.HEADER_BYTE_SIZE + i * CompressedBoardScoreBook.LEVEL_BYTE_SIZE;
+			
+			buffer.putInt(p, wordOffset);
+			buffer.putInt(p + 4, level.length);
+			
+			for(long word : level) {
+				
+				if((wordOffset & ((1 << CompressedBoardScoreBook.LOGARITHMIC_RANK_SAMPLE_WORD_AMOUNT) - 1)) == 0) {
+					
+					int rankSampleIndex = wordOffset >>> CompressedBoardScoreBook.LOGARITHMIC_RANK_SAMPLE_WORD_AMOUNT;
+					buffer.putInt(rankSamplesOffset + rankSampleIndex * Integer.BYTES, rank);
+				}
+				
+				buffer.putLong(wordsOffset + wordOffset * Long.BYTES, word);
+				
+				rank += Long.bitCount(word);
+				wordOffset++;
+			}
+		}
+		
+		// the entries are placed by the book itself so that
+		// they are found exactly the way they are looked up
+		CompressedBoardScoreBook book;
+		
+		try {
+			
+			book = new CompressedBoardScoreBook(buffer);
+			
+		} catch(IOException exception) {
+			
+			throw new IllegalStateException("The written book is invalid!", exception);
+		}
+		
+		for(int i = 0; i < n; i++) {
+			
+			long columnHash = columnHashes[i];
+			
+			int index = book.index(columnHash);
+			long score = scores[i] + CompressedBoardScoreBook.SCORE_OFFSET;
+			
+			long entry = book.fingerprint(columnHash) << CompressedBoardScoreBook.SCORE_BIT_AMOUNT | score;
+			putEntry(buffer, entriesOffset, (long) index * entryBitAmount, entry);
+		}
+		
+		buffer.putInt(CompressedBoardScoreBook.CHECKSUM_OFFSET, book.checksum());
+		return buffer;
+	}
+	
+	public void writeToFile(Path path) throws IOException {
+		ByteBuffer buffer = write();
+		
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			
+			while(buffer.hasRemaining()) channel.write(buffer);
+		}
+	}
+	
+	private List<long[]> levels() {
+		List<long[]> levels = new ArrayList<>();
+		
+		long[] columnHashes = this.columnHashes;
+		int n = columnHashes.length;
+		
+		int unproductiveLevelAmount = 0;
+		
+		while(n > 0) {
+			
+			int level = levels.size();
+			
+			int wordAmount = (int) Math.ceil(n * LEVEL_BITS_PER_COLUMN_HASH / Long.SIZE);
+			long bitAmount = (long) wordAmount << LOGARITHMIC_WORD_BIT_AMOUNT;
+			
+			long[] words = new long[wordAmount];
+			long[] collisions = new long[wordAmount];
+			
+			for(int i = 0; i < n; i++) {
+				
+				long p = CompressedBoardScoreBook.levelPosition(columnHashes[i], level, bitAmount);
+				
+				int wordIndex = (int) (p >>> LOGARITHMIC_WORD_BIT_AMOUNT);
+				long mask = 1L << p;
+				
+				if((words[wordIndex] & mask) != 0) collisions[wordIndex] |= mask;
+				words[wordIndex] |= mask;
+			}
+			
+			for(int i = 0; i < wordAmount; i++) {
+				
+				words[i] &= ~collisions[i];
+			}
+			
+			// keeps the column hashes that have not been placed, the given column hashes
+			// are only copied once the first level has placed most of them
+			long[] remainingColumnHashes = columnHashes == this.columnHashes ? new long[unplacedColumnHashAmount(columnHashes, n, level, words)] : columnHashes;
+			int m = 0;
+			
+			for(int i = 0; i < n; i++) {
+				
+				if(!placed(columnHashes[i], level, words)) remainingColumnHashes[m++] = columnHashes[i];
+			}
+			
+			columnHashes = remainingColumnHashes;
+			
+			unproductiveLevelAmount = m == n ? unproductiveLevelAmount + 1 : 0;
+			if(unproductiveLevelAmount > MAXIMAL_UNPRODUCTIVE_LEVEL_AMOUNT) throw new IllegalArgumentException("The column hashes must be distinct!");
+			
+			levels.add(words);
+			n = m;
+		}
+		
+		return levels;
+	}
+	
+	private static int unplacedColumnHashAmount(long[] columnHashes, int n, int level, long[] words) {
+		int m = 0;
+		
+		for(int i = 0; i < n; i++) {
+			
+			if(!placed(columnHashes[i], level, words)) m++;
+		}
+		
+		return m;
+	}
+	
+	private static boolean placed(long columnHash, int level, long[] words) {
+		long bitAmount = (long) words.length << LOGARITHMIC_WORD_BIT_AMOUNT;
+		long p = CompressedBoardScoreBook.levelPosition(columnHash, level, bitAmount);
+		
+		return (words[(int) (p >>> LOGARITHMIC_WORD_BIT_AMOUNT)] & (1L << p)) != 0;
+	}
+	
+	private static void putEntry(ByteBuffer buffer, int entriesOffset, long bit, long entry) {
+		int wordIndex = (int) (bit >>> LOGARITHMIC_WORD_BIT_AMOUNT);
+		int shiftAmount = (int) (bit & (Long.SIZE - 1));
+		
+		int p = entriesOffset + wordIndex * Long.BYTES;
+		buffer.putLong(p, buffer.getLong(p) | entry << shiftAmount);
+		
+		if(shiftAmount == 0) return;
+		
+		long overflow = entry >>> (Long.SIZE - shiftAmount);
+		if(overflow != 0) buffer.putLong(p + Long.BYTES, buffer.getLong(p + Long.BYTES) | overflow);
+	}
+	
+}
@@ -0,0 +1,24 @@
+package net.kite.board.score.book.disabled;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.BoardScoreBook;
+
+// a book that does not contain any board, as its maximal depth is negative
+// boards using it skip all book lookups
+public class DisabledBoardScoreBook implements BoardScoreBook {
+	
+	public static final DisabledBoardScoreBook INSTANCE = new DisabledBoardScoreBook();
+	
+	private static final int MAXIMAL_DEPTH = -1;
+	
+	@Override
+	public int boardScore(Board board) {
+		return MISSING_BOARD_SCORE;
+	}
+	
+	@Override
+	public int maximalDepth() {
+		return MAXIMAL_DEPTH;
+	}
+	
+}
@@ -1,71 +1,54 @@
 package net.kite.board.score.cache;
 
-import net.kite.board.bit.Bitboards;
-
-public class BoardScoreCache {
-	
-	private static final int CAPACITY = 1048576;
-	private static final long KEY_MASK = 1048575;
+public abstract class BoardScoreCache {
 	
-	private static final int MISSING_ENTRY_KEY = -1;
+	public static final int MISSING_ENTRY = Integer.MIN_VALUE;
 	
-	private final long[] entryHashes;
+	// the move of an entry whose best move is not known
+	public static final int MISSING_MOVE = -1;
 	
-	private final byte[] entryMinimalScores;
-	private final byte[] entryMaximalScores;
+	private static final int ENTRY_SCORE_BIT_AMOUNT = 8;
+	private static final int ENTRY_SCORE_MASK = 0x000000FF;
 	
-	public BoardScoreCache() {
-		this.entryHashes = new long[CAPACITY];
-		this.entryMinimalScores = new byte[CAPACITY];
-		this.entryMaximalScores = new byte[CAPACITY];
-	}
+	private static final int ENTRY_MOVE_SHIFT_AMOUNT = 2 * ENTRY_SCORE_BIT_AMOUNT;
+	private static final int ENTRY_MOVE_MASK = 0x00000007;
 	
-	public void updateEntry(long hash, long mixedHash, int minimalScore, int maximalScore) {
-		int key = (int) (mixedHash & KEY_MASK);
-		
-		long h = entryHashes[key];
-		if(h == hash) {
-			
-			int min = entryMinimalScores[key];
-			int max = entryMaximalScores[key];
-			
-			if(minimalScore > min) entryMinimalScores[key] = (byte) minimalScore;
-			if(maximalScore < max) entryMaximalScores[key] = (byte) maximalScore;
-			
-			return;
-		}
-		
-		entryHashes[key] = hash;
-		
-		entryMinimalScores[key] = (byte) minimalScore;
-		entryMaximalScores[key] = (byte) maximalScore;
-	}
+	// the work is a rough measure of how expensive the score bounds were
+	// to compute (the binary logarithm of the searched subtree's size) that
+	// may be used to decide which entries are worth keeping, the move is the
+	// move that caused a cutoff or raised the lower bound (which is tried
+	// first when the board is searched again) or the missing move, returns
+	// whether the entry of a different board was replaced
+	public abstract boolean updateEntry(long hash, int minimalScore, int maximalScore, int work, int move);
 	
-	public boolean entryFilled(int entryKey) {
-		return entryHashes[entryKey] != Bitboards.EMPTY;
-	}
+	// returns both score bounds and the move of an entry
+	// in a single value so that they can be read all at once
+	public abstract int entry(long hash);
 	
-	public long entryHash(int entryKey) {
-		return entryHashes[entryKey];
-	}
+	// adds the probes and overwrites a board counted during an evaluation, boards
+	// count them on their own so that probing a cache never writes to memory that
+	// is shared with other threads
+	public abstract void addStatistics(long hitAmount, long missAmount, long overwriteAmount);
 	
-	public int entryMinimalScore(int entryKey) {
-		return entryMinimalScores[entryKey];
+	protected static int entry(int minimalScore, int maximalScore, int move) {
+		int entry = (move + 1) << ENTRY_MOVE_SHIFT_AMOUNT;
+		
+		entry |= (minimalScore & ENTRY_SCORE_MASK) << ENTRY_SCORE_BIT_AMOUNT;
+		entry |= maximalScore & ENTRY_SCORE_MASK;
+		
+		return entry;
 	}
 	
-	public int entryMaximalScore(int entryKey) {
-		return entryMaximalScores[entryKey];
+	public static int entryMinimalScore(int entry) {
+		return (byte) (entry >> ENTRY_SCORE_BIT_AMOUNT);
 	}
 	
-	public int entryKey(long hash, long mixedHash) {
-		int key = (int) (mixedHash & KEY_MASK);
-		
-		long h = entryHashes[key];
-		return h == hash ? key : MISSING_ENTRY_KEY;
+	public static int entryMaximalScore(int entry) {
+		return (byte) entry;
 	}
 	
-	public static int getCapacity() {
-		return CAPACITY;
+	public static int entryMove(int entry) {
+		return ((entry >>> ENTRY_MOVE_SHIFT_AMOUNT) & ENTRY_MOVE_MASK) - 1;
 	}
 	
 }
@@ -0,0 +1,122 @@
+package net.kite.board.score.cache.concurrent;
+
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// a score cache that can be used by multiple boards that are being evaluated
+// on different threads without any locking, entries are read and written
+// atomically and therefore can never be torn, concurrent updates of the same
+// bucket might get lost however which is fine as every entry only ever holds
+// valid score bounds, just like with the local score cache the entry of a full
+// bucket that took the least work to compute is replaced
+public class ConcurrentBoardScoreCache extends PackedBoardScoreCache {
+	
+	public static final int DEFAULT_CAPACITY = 1048576;
+	
+	private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+	
+	private final long[] entries;
+	
+	public ConcurrentBoardScoreCache() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public ConcurrentBoardScoreCache(int capacity) {
+		super(capacity);
+		
+		this.entries = new long[capacity];
+	}
+	
+	@Override
+	public boolean updateEntry(long hash, int minimalScore, int maximalScore, int work, int move) {
+		int bucket = bucket(hash);
+		long verification = verification(hash);
+		
+		int replacedKey = bucket;
+		int replacedWork = Integer.MAX_VALUE;
+		
+		for(int key = bucket; key < bucket + BUCKET_SIZE; key++) {
+			
+			long entry = (long) ENTRIES.getOpaque(entries, key);
+			if(entryMatches(entry, verification)) {
+				
+				entry = mergedEntry(entry, verification, minimalScore, maximalScore, work, move);
+				ENTRIES.setOpaque(entries, key, entry);
+				
+				return false;
+			}
+			
+			int w = entryReplacementWork(entry);
+			if(w < replacedWork) {
+				
+				replacedKey = key;
+				replacedWork = w;
+			}
+		}
+		
+		long entry = entry(verification, minimalScore, maximalScore, work, move);
+		ENTRIES.setOpaque(entries, replacedKey, entry);
+		
+		return replacedWork != EMPTY_ENTRY_REPLACEMENT_WORK;
+	}
+	
+	@Override
+	public int entry(long hash) {
+		long entry = matchingEntry(bucket(hash), verification(hash));
+		if(entry == EMPTY_ENTRY) return MISSING_ENTRY;
+		
+		return entryScores(entry);
+	}
+	
+	// the entry of the bucket that belongs to the board or the empty entry,
+	// unrolled just like the one of the local score cache, the matching entry
+	// itself is returned as the bucket may change at any time
+	private long matchingEntry(int bucket, long verification) {
+		long entry = (long) ENTRIES.getOpaque(entries, bucket);
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = (long) ENTRIES.getOpaque(entries, bucket + 1);
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = (long) ENTRIES.getOpaque(entries, bucket + 2);
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = (long) ENTRIES.getOpaque(entries, bucket + 3);
+		if(entryMatches(entry, verification)) return entry;
+		
+		return EMPTY_ENTRY;
+	}
+	
+	@Override
+	protected void clearEntries() {
+		Arrays.fill(entries, EMPTY_ENTRY);
+	}
+	
+	@Override
+	public long filledEntryAmount(boolean currentGenerationOnly) {
+		long n = 0;
+		
+		for(long entry : entries) {
+			
+			if(entryFilled(entry, currentGenerationOnly)) n++;
+		}
+		
+		return n;
+	}
+	
+	@Override
+	public void writeEntries(FileChannel channel) throws IOException {
+		writeEntries(entries, channel);
+	}
+	
+	@Override
+	public void readEntries(FileChannel channel) throws IOException {
+		readEntries(entries, channel);
+	}
+	
+}
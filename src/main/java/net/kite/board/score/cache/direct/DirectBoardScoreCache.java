@@ -0,0 +1,208 @@
+package net.kite.board.score.cache.direct;
+
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// a score cache whose entries are stored in direct memory outside of the java heap
+// so that even very large caches do not add to the work of the garbage collector,
+// just like the concurrent score cache it can be used by multiple threads without
+// any locking, as a single direct buffer can hold at most 2^31 bytes the entries are
+// split into segments of up to 2^27 entries (a bucket never spans two segments),
+// the segments can also be mapped from a file which makes loading a large
+// cache almost instant as its entries are only read once they are used
+public class DirectBoardScoreCache extends PackedBoardScoreCache {
+	
+	private static final int MAXIMAL_LOGARITHMIC_SEGMENT_CAPACITY = 27;
+	
+	private static final int LOGARITHMIC_ENTRY_BYTE_SIZE = 3;
+	private static final int BUCKET_BYTE_SIZE = BUCKET_SIZE * ENTRY_BYTE_SIZE;
+	
+	private static final VarHandle ENTRIES = MethodHandles.byteBufferViewVarHandle(long[].class, ENTRY_BYTE_ORDER);
+	
+	private final int segmentBitAmount;
+	private final int segmentKeyMask;
+	
+	private ByteBuffer[] segments;
+	
+	public DirectBoardScoreCache(int capacity) {
+		super(capacity);
+		
+		int logarithmicCapacity = Integer.numberOfTrailingZeros(capacity);
+		
+		this.segmentBitAmount = Math.min(logarithmicCapacity, MAXIMAL_LOGARITHMIC_SEGMENT_CAPACITY);
+		this.segmentKeyMask = (1 << segmentBitAmount) - 1;
+		
+		int segmentAmount = capacity >>> segmentBitAmount;
+		int segmentByteSize = segmentByteSize();
+		
+		this.segments = new ByteBuffer[segmentAmount];
+		
+		// direct buffers are zeroed which makes all entries empty
+		for(int i = 0; i < segmentAmount; i++) {
+			
+			segments[i] = ByteBuffer.allocateDirect(segmentByteSize);
+		}
+	}
+	
+	// maps the entries stored in the channel starting at the given position (which
+	// needs to be a multiple of eight), the mapping is private so updated entries
+	// are never written back to the file and the channel may be closed afterwards
+	public DirectBoardScoreCache(int capacity, FileChannel channel, long position) throws IOException {
+		super(capacity);
+		
+		int logarithmicCapacity = Integer.numberOfTrailingZeros(capacity);
+		
+		this.segmentBitAmount = Math.min(logarithmicCapacity, MAXIMAL_LOGARITHMIC_SEGMENT_CAPACITY);
+		this.segmentKeyMask = (1 << segmentBitAmount) - 1;
+		
+		int segmentAmount = capacity >>> segmentBitAmount;
+		int segmentByteSize = segmentByteSize();
+		
+		this.segments = new ByteBuffer[segmentAmount];
+		
+		for(int i = 0; i < segmentAmount; i++) {
+			
+			segments[i] = channel.map(FileChannel.MapMode.PRIVATE, position, segmentByteSize);
+			position += segmentByteSize;
+		}
+	}
+	
+	@Override
+	public boolean updateEntry(long hash, int minimalScore, int maximalScore, int work, int move) {
+		int bucket = bucket(hash);
+		long verification = verification(hash);
+		
+		ByteBuffer segment = segments[bucket >>> segmentBitAmount];
+		int bucketIndex = (bucket & segmentKeyMask) << LOGARITHMIC_ENTRY_BYTE_SIZE;
+		
+		int replacedIndex = bucketIndex;
+		int replacedWork = Integer.MAX_VALUE;
+		
+		for(int index = bucketIndex; index < bucketIndex + BUCKET_BYTE_SIZE; index += ENTRY_BYTE_SIZE) {
+			
+			long entry = (long) ENTRIES.getOpaque(segment, index);
+			if(entryMatches(entry, verification)) {
+				
+				entry = mergedEntry(entry, verification, minimalScore, maximalScore, work, move);
+				ENTRIES.setOpaque(segment, index, entry);
+				
+				return false;
+			}
+			
+			int w = entryReplacementWork(entry);
+			if(w < replacedWork) {
+				
+				replacedIndex = index;
+				replacedWork = w;
+			}
+		}
+		
+		long entry = entry(verification, minimalScore, maximalScore, work, move);
+		ENTRIES.setOpaque(segment, replacedIndex, entry);
+		
+		return replacedWork != EMPTY_ENTRY_REPLACEMENT_WORK;
+	}
+	
+	@Override
+	public int entry(long hash) {
+		int bucket = bucket(hash);
+		
+		ByteBuffer segment = segments[bucket >>> segmentBitAmount];
+		int bucketIndex = (bucket & segmentKeyMask) << LOGARITHMIC_ENTRY_BYTE_SIZE;
+		
+		long entry = matchingEntry(segment, bucketIndex, verification(hash));
+		if(entry == EMPTY_ENTRY) return MISSING_ENTRY;
+		
+		return entryScores(entry);
+	}
+	
+	// the entry of the bucket that belongs to the board or the empty
+	// entry, unrolled just like the one of the local score cache
+	private long matchingEntry(ByteBuffer segment, int bucketIndex, long verification) {
+		long entry = (long) ENTRIES.getOpaque(segment, bucketIndex);
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = (long) ENTRIES.getOpaque(segment, bucketIndex + ENTRY_BYTE_SIZE);
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = (long) ENTRIES.getOpaque(segment, bucketIndex + 2 * ENTRY_BYTE_SIZE);
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = (long) ENTRIES.getOpaque(segment, bucketIndex + 3 * ENTRY_BYTE_SIZE);
+		if(entryMatches(entry, verification)) return entry;
+		
+		return EMPTY_ENTRY;
+	}
+	
+	@Override
+	protected void clearEntries() {
+		for(ByteBuffer segment : segments) {
+			
+			int l = segment.capacity();
+			for(int index = 0; index < l; index += ENTRY_BYTE_SIZE) {
+				
+				ENTRIES.setOpaque(segment, index, EMPTY_ENTRY);
+			}
+		}
+	}
+	
+	@Override
+	public long filledEntryAmount(boolean currentGenerationOnly) {
+		long n = 0;
+		
+		for(ByteBuffer segment : segments) {
+			
+			int l = segment.capacity();
+			for(int index = 0; index < l; index += ENTRY_BYTE_SIZE) {
+				
+				long entry = (long) ENTRIES.getOpaque(segment, index);
+				if(entryFilled(entry, currentGenerationOnly)) n++;
+			}
+		}
+		
+		return n;
+	}
+	
+	@Override
+	public void writeEntries(FileChannel channel) throws IOException {
+		for(ByteBuffer segment : segments) {
+			
+			ByteBuffer buffer = segment.duplicate();
+			buffer.clear();
+			
+			while(buffer.hasRemaining()) channel.write(buffer);
+		}
+	}
+	
+	@Override
+	public void readEntries(FileChannel channel) throws IOException {
+		for(ByteBuffer segment : segments) {
+			
+			ByteBuffer buffer = segment.duplicate();
+			buffer.clear();
+			
+			readFully(buffer, channel);
+		}
+	}
+	
+	private int segmentByteSize() {
+		return (segmentKeyMask + 1) << LOGARITHMIC_ENTRY_BYTE_SIZE;
+	}
+	
+	// drops all entries, the direct memory is freed (or unmapped) as soon
+	// as the garbage collector notices that the segments are no longer
+	// referenced, the cache may no longer be used after it has been released
+	public void release() {
+		segments = null;
+	}
+	
+	public boolean released() {
+		return segments == null;
+	}
+	
+}
@@ -0,0 +1,113 @@
+package net.kite.board.score.cache.local;
+
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// a score cache that may only be used by a single thread,
+// when a bucket is full the entry that took the least
+// work to compute is replaced
+public class LocalBoardScoreCache extends PackedBoardScoreCache {
+	
+	public static final int DEFAULT_CAPACITY = 1048576;
+	
+	private final long[] entries;
+	
+	public LocalBoardScoreCache() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public LocalBoardScoreCache(int capacity) {
+		super(capacity);
+		
+		this.entries = new long[capacity];
+	}
+	
+	@Override
+	public boolean updateEntry(long hash, int minimalScore, int maximalScore, int work, int move) {
+		int bucket = bucket(hash);
+		long verification = verification(hash);
+		
+		int replacedKey = bucket;
+		int replacedWork = Integer.MAX_VALUE;
+		
+		for(int key = bucket; key < bucket + BUCKET_SIZE; key++) {
+			
+			long entry = entries[key];
+			if(entryMatches(entry, verification)) {
+				
+				entries[key] = mergedEntry(entry, verification, minimalScore, maximalScore, work, move);
+				return false;
+			}
+			
+			int w = entryReplacementWork(entry);
+			if(w < replacedWork) {
+				
+				replacedKey = key;
+				replacedWork = w;
+			}
+		}
+		
+		entries[replacedKey] = entry(verification, minimalScore, maximalScore, work, move);
+		
+		return replacedWork != EMPTY_ENTRY_REPLACEMENT_WORK;
+	}
+	
+	@Override
+	public int entry(long hash) {
+		long entry = matchingEntry(bucket(hash), verification(hash));
+		if(entry == EMPTY_ENTRY) return MISSING_ENTRY;
+		
+		return entryScores(entry);
+	}
+	
+	// the entry of the bucket that belongs to the board or the empty entry, the four
+	// entries are checked one after the other without a loop which makes misses (most
+	// probes miss and check every entry) about twice as fast as the jit compiler does
+	// not unroll loops that can be left early
+	private long matchingEntry(int bucket, long verification) {
+		long entry = entries[bucket];
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = entries[bucket + 1];
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = entries[bucket + 2];
+		if(entryMatches(entry, verification)) return entry;
+		
+		entry = entries[bucket + 3];
+		if(entryMatches(entry, verification)) return entry;
+		
+		return EMPTY_ENTRY;
+	}
+	
+	@Override
+	protected void clearEntries() {
+		Arrays.fill(entries, EMPTY_ENTRY);
+	}
+	
+	@Override
+	public long filledEntryAmount(boolean currentGenerationOnly) {
+		long n = 0;
+		
+		for(long entry : entries) {
+			
+			if(entryFilled(entry, currentGenerationOnly)) n++;
+		}
+		
+		return n;
+	}
+	
+	@Override
+	public void writeEntries(FileChannel channel) throws IOException {
+		writeEntries(entries, channel);
+	}
+	
+	@Override
+	public void readEntries(FileChannel channel) throws IOException {
+		readEntries(entries, channel);
+	}
+	
+}
@@ -2,24 +2,64 @@ package net.kite.board.score.cache.opening;
 
 import net.kite.board.Board;
 import net.kite.board.score.BoardScore;
+import net.kite.board.score.book.BoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBook;
 import net.kite.board.score.cache.BoardScoreCache;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
 
-public class OpeningBoardScoreCache {
+// the entries are either stored on the heap or mapped from a file, such a file
+// starts with a header that is followed by the partial column hashes and the
+// already decoded scores so that the mapped entries can be used as they are
+// and the pages of the file can be shared by all processes that map it, the
+// header also holds a checksum of the entries which is not verified when the
+// file is mapped (as that would read the whole file) but by verifiedFromFile,
+// until the cache is loaded (or if loading fails) all boards are missing,
+// the bundled cache has the default capacity and maximal depth while caches
+// loaded from files may have any capacity and maximal depth, until the entries
+// are loaded boards can also be found in compressed shards that each contain
+// the boards of some consecutive depths so that the boards of small depths
+// can be found before the shards of large depths have been loaded
+public class OpeningBoardScoreCache implements BoardScoreBook {
 	
-	private static final int CAPACITY = 16777259;
-	private static final int MAXIMAL_DEPTH = 14;
+	private static final int DEFAULT_CAPACITY = 16777259;
+	private static final int DEFAULT_MAXIMAL_DEPTH = 14;
+	
+	private static final int LARGEST_MAXIMAL_DEPTH = 42;
 	
 	private static final long BOARD_PARTIAL_COLUMN_HASH_MASK = 0x00000000000000FFL;
 	
-	private final byte[] boardPartialColumnHashes;
-	private final byte[] boardScores;
+	private static final int FILE_MAGIC_NUMBER = 0x4B4F4243;
+	private static final int FILE_FORMAT_VERSION = 3;
+	
+	private static final int FILE_HEADER_BYTE_SIZE = 24;
+	private static final int FILE_CHECKSUM_OFFSET = 16;
+	
+	private final int capacity;
+	private final int maximalDepth;
+	
+	// replaced as a whole when the cache is loaded
+	private volatile OpeningBoardScoreCacheEntries entries;
+	
+	// the shard of each depth, replaced as a whole when a shard is added
+	private volatile CompressedBoardScoreBook[] depthShards;
 	
 	public OpeningBoardScoreCache() {
-		this.boardPartialColumnHashes = new byte[CAPACITY];
-		this.boardScores = new byte[CAPACITY];
+		this(DEFAULT_CAPACITY, DEFAULT_MAXIMAL_DEPTH);
+	}
+	
+	public OpeningBoardScoreCache(int capacity, int maximalDepth) {
+		this.capacity = capacity;
+		this.maximalDepth = maximalDepth;
+		
+		this.depthShards = new CompressedBoardScoreBook[maximalDepth + 1];
 	}
 	
 	public void loadFromResources(String resourcePath) {
@@ -33,13 +73,13 @@ public class OpeningBoardScoreCache {
 		
 		try(inputStream) {
 			
-			inputStream.readNBytes(boardPartialColumnHashes, 0, CAPACITY);
-			inputStream.readNBytes(boardScores, 0, CAPACITY);
+			byte[] bytes = new byte[2 * capacity];
 			
-			for(int i = 0; i < CAPACITY; i++) {
-				
-				boardScores[i] += BoardScore.INVALID;
-			}
+			int n = inputStream.readNBytes(bytes, 0, bytes.length);
+			if(n != bytes.length) throw new IOException("The opening score cache in resources is incomplete!");
+			if(inputStream.read() != -1) throw new IOException("The opening score cache in resources is larger than expected!");
+			
+			loadDecoding(bytes);
 			
 		} catch(IOException exception) {
 			
@@ -48,6 +88,9 @@ public class OpeningBoardScoreCache {
 		}
 	}
 	
+	// the bytes are either those of a file written by saveToFile, whose entries
+	// are used without copying them, or those of the bundled cache, which are
+	// decoded in place, either way this cache keeps using the given array
 	public void loadFromBytes(byte[] bytes) {
 		if(bytes == null) {
 			
@@ -57,12 +100,13 @@ public class OpeningBoardScoreCache {
 		
 		try {
 			
-			System.arraycopy(bytes, 0, boardPartialColumnHashes, 0, CAPACITY);
-			System.arraycopy(bytes, CAPACITY, boardScores, 0, CAPACITY);
-			
-			for(int i = 0; i < CAPACITY; i++) {
+			if(bytes.length >= FILE_HEADER_BYTE_SIZE && ByteBuffer.wrap(bytes).getInt(0) == FILE_MAGIC_NUMBER) {
 				
-				boardScores[i] += BoardScore.INVALID;
+				loadDecoded(bytes);
+				
+			} else {
+				
+				loadDecoding(bytes);
 			}
 			
 		} catch(Exception exception) {
@@ -72,24 +116,257 @@ public class OpeningBoardScoreCache {
 		}
 	}
 	
+	private void loadDecoded(byte[] bytes) throws IOException {
+		ByteBuffer header = ByteBuffer.wrap(bytes, 0, FILE_HEADER_BYTE_SIZE);
+		
+		if(fileCapacity(header) != capacity || fileMaximalDepth(header) != maximalDepth) {
+			
+			throw new IOException("The opening book file has an unexpected capacity or maximal depth!");
+		}
+		
+		if(bytes.length != FILE_HEADER_BYTE_SIZE + 2 * capacity) throw new IOException("The opening book file has an unexpected size!");
+		
+		ByteBuffer boardPartialColumnHashes = ByteBuffer.wrap(bytes, FILE_HEADER_BYTE_SIZE, capacity).slice();
+		ByteBuffer boardScores = ByteBuffer.wrap(bytes, FILE_HEADER_BYTE_SIZE + capacity, capacity).slice();
+		
+		entries = new OpeningBoardScoreCacheEntries(boardPartialColumnHashes, boardScores);
+	}
+	
+	// the partial column hashes are followed by the scores, which are
+	// stored with an offset so that missing boards are zero
+	private void loadDecoding(byte[] bytes) throws IOException {
+		if(bytes.length != 2 * capacity) throw new IOException("The opening score cache has an unexpected size!");
+		
+		for(int i = capacity; i < 2 * capacity; i++) {
+			
+			bytes[i] += BoardScore.INVALID;
+		}
+		
+		ByteBuffer boardPartialColumnHashes = ByteBuffer.wrap(bytes, 0, capacity).slice();
+		ByteBuffer boardScores = ByteBuffer.wrap(bytes, capacity, capacity).slice();
+		
+		entries = new OpeningBoardScoreCacheEntries(boardPartialColumnHashes, boardScores);
+	}
+	
+	// the bytes of a compressed book file are used without copying them
+	public synchronized void loadShardFromBytes(byte[] bytes) {
+		try {
+			
+			CompressedBoardScoreBook shard = new CompressedBoardScoreBook(ByteBuffer.wrap(bytes));
+			if(shard.maximalDepth() > maximalDepth) throw new IOException("The opening book shard is deeper than the opening book!");
+			
+			CompressedBoardScoreBook[] depthShards = this.depthShards.clone();
+			for(int depth = shard.minimalDepth(); depth <= shard.maximalDepth(); depth++) depthShards[depth] = shard;
+			
+			this.depthShards = depthShards;
+			
+		} catch(Exception exception) {
+			
+			String errorMessage = String.format("An exception occurred while loading opening score cache shard from bytes: %s", exception);
+			System.err.println(errorMessage);
+		}
+	}
+	
+	// fills the entries from full column hashes, a column hash whose index is
+	// already taken by an earlier column hash is dropped so that the more
+	// valuable boards should come first
+	public void loadFromEntries(long[] columnHashes, byte[] scores) {
+		byte[] partialColumnHashes = new byte[capacity];
+		byte[] decodedScores = new byte[capacity];
+		
+		Arrays.fill(decodedScores, (byte) BoardScore.INVALID);
+		
+		int n = columnHashes.length;
+		for(int i = 0; i < n; i++) {
+			
+			long columnHash = columnHashes[i];
+			int index = (int) Long.remainderUnsigned(columnHash, capacity);
+			
+			if(decodedScores[index] != BoardScore.INVALID) continue;
+			
+			partialColumnHashes[index] = (byte) (columnHash & BOARD_PARTIAL_COLUMN_HASH_MASK);
+			decodedScores[index] = scores[i];
+		}
+		
+		entries = new OpeningBoardScoreCacheEntries(ByteBuffer.wrap(partialColumnHashes), ByteBuffer.wrap(decodedScores));
+	}
+	
+	// maps the entries of a file written by saveToFile instead of reading them, the
+	// file needs to match the capacity and maximal depth of this cache, the mapping
+	// is read-only and stays valid after the channel has been closed
+	public void loadFromFile(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			ByteBuffer header = fileHeader(channel);
+			
+			if(fileCapacity(header) != capacity || fileMaximalDepth(header) != maximalDepth) {
+				
+				throw new IOException("The opening book file has an unexpected capacity or maximal depth!");
+			}
+			
+			long byteSize = FILE_HEADER_BYTE_SIZE + 2L * capacity;
+			if(channel.size() != byteSize) throw new IOException("The opening book file has an unexpected size!");
+			
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, byteSize);
+			
+			ByteBuffer boardPartialColumnHashes = buffer.slice(FILE_HEADER_BYTE_SIZE, capacity);
+			ByteBuffer boardScores = buffer.slice(FILE_HEADER_BYTE_SIZE + capacity, capacity);
+			
+			entries = new OpeningBoardScoreCacheEntries(boardPartialColumnHashes, boardScores);
+		}
+	}
+	
+	// writes the entries in the format expected by loadFromFile,
+	// the cache needs to be loaded
+	public void saveToFile(Path path) throws IOException {
+		OpeningBoardScoreCacheEntries entries = this.entries;
+		if(entries == null) throw new IOException("The opening book has not been loaded!");
+		
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			
+			ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTE_SIZE);
+			
+			header.putInt(FILE_MAGIC_NUMBER);
+			header.putInt(FILE_FORMAT_VERSION);
+			header.putInt(capacity);
+			header.putInt(maximalDepth);
+			header.putInt(checksum(entries));
+			
+			header.clear();
+			
+			ByteBuffer[] buffers = new ByteBuffer[] {
+					header,
+					entries.getBoardPartialColumnHashes().duplicate().clear(),
+					entries.getBoardScores().duplicate().clear()
+			};
+			
+			for(ByteBuffer buffer : buffers) {
+				
+				while(buffer.hasRemaining()) channel.write(buffer);
+			}
+		}
+	}
+	
+	// the crc32 of the partial column hashes followed by the decoded
+	// scores, the cache needs to be loaded
+	public int checksum() {
+		return checksum(entries);
+	}
+	
+	public boolean loaded() {
+		return entries != null;
+	}
+	
+	@Override
 	public int boardScore(Board board) {
 		int n = board.playedMoveAmount();
-		if(n > MAXIMAL_DEPTH) return Integer.MIN_VALUE;
+		if(n > maximalDepth) return MISSING_BOARD_SCORE;
+		
+		OpeningBoardScoreCacheEntries entries = this.entries;
+		
+		if(entries == null) {
+			
+			CompressedBoardScoreBook shard = depthShards[n];
+			if(shard == null) return MISSING_BOARD_SCORE;
+			
+			return shard.boardScore(board);
+		}
 		
 		long columnHash = board.columnHash();
-		int index = (int) Long.remainderUnsigned(columnHash, CAPACITY);
+		int index = (int) Long.remainderUnsigned(columnHash, capacity);
 		
-		byte boardScore = boardScores[index];
-		if(boardScore == BoardScore.INVALID) return Integer.MIN_VALUE;
+		byte boardScore = entries.getBoardScores().get(index);
+		if(boardScore == BoardScore.INVALID) return MISSING_BOARD_SCORE;
 		
-		long partialColumnHash = boardPartialColumnHashes[index];
+		long partialColumnHash = entries.getBoardPartialColumnHashes().get(index);
 		
 		columnHash &= BOARD_PARTIAL_COLUMN_HASH_MASK;
 		partialColumnHash &= BOARD_PARTIAL_COLUMN_HASH_MASK;
 		
 		if(columnHash == partialColumnHash) return boardScore;
 		
-		return Integer.MIN_VALUE;
+		return MISSING_BOARD_SCORE;
+	}
+	
+	@Override
+	public int maximalDepth() {
+		return maximalDepth;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	// maps a file written by saveToFile using the capacity and maximal depth stored in it
+	public static OpeningBoardScoreCache fromFile(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			ByteBuffer header = fileHeader(channel);
+			
+			int capacity = fileCapacity(header);
+			int maximalDepth = fileMaximalDepth(header);
+			
+			OpeningBoardScoreCache cache = new OpeningBoardScoreCache(capacity, maximalDepth);
+			cache.loadFromFile(path);
+			
+			return cache;
+		}
+	}
+	
+	// maps a file written by saveToFile and checks its size and checksum
+	public static OpeningBoardScoreCache verifiedFromFile(Path path) throws IOException {
+		OpeningBoardScoreCache cache = fromFile(path);
+		
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			ByteBuffer header = fileHeader(channel);
+			if(header.getInt(FILE_CHECKSUM_OFFSET) != cache.checksum()) throw new IOException("The opening book file is corrupted!");
+		}
+		
+		return cache;
+	}
+	
+	private static int checksum(OpeningBoardScoreCacheEntries entries) {
+		CRC32 checksum = new CRC32();
+		
+		checksum.update(entries.getBoardPartialColumnHashes().duplicate().clear());
+		checksum.update(entries.getBoardScores().duplicate().clear());
+		
+		return (int) checksum.getValue();
+	}
+	
+	private static ByteBuffer fileHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTE_SIZE);
+		
+		while(header.hasRemaining()) {
+			
+			if(channel.read(header, header.position()) < 0) throw new IOException("The opening book file is incomplete!");
+		}
+		
+		return header;
+	}
+	
+	private static int fileCapacity(ByteBuffer header) throws IOException {
+		if(header.getInt(0) != FILE_MAGIC_NUMBER) throw new IOException("The file is not an opening book file!");
+		
+		int formatVersion = header.getInt(Integer.BYTES);
+		if(formatVersion != FILE_FORMAT_VERSION) {
+			
+			String errorMessage = String.format("The opening book file has format version %d but only version %d is supported!", formatVersion, FILE_FORMAT_VERSION);
+			throw new IOException(errorMessage);
+		}
+		
+		int capacity = header.getInt(2 * Integer.BYTES);
+		if(capacity <= 0) throw new IOException("The opening book file has an invalid capacity!");
+		
+		return capacity;
+	}
+	
+	private static int fileMaximalDepth(ByteBuffer header) throws IOException {
+		int maximalDepth = header.getInt(3 * Integer.BYTES);
+		if(maximalDepth < 0 || maximalDepth > LARGEST_MAXIMAL_DEPTH) throw new IOException("The opening book file has an invalid maximal depth!");
+		
+		return maximalDepth;
 	}
 	
 }
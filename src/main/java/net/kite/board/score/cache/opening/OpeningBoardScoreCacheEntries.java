@@ -0,0 +1,26 @@
+package net.kite.board.score.cache.opening;
+
+import java.nio.ByteBuffer;
+
+// the partial column hashes and the matching decoded scores of an opening
+// score cache, which are always replaced together so that a board never
+// pairs the score of one load with the partial column hash of another
+class OpeningBoardScoreCacheEntries {
+	
+	private final ByteBuffer boardPartialColumnHashes;
+	private final ByteBuffer boardScores;
+	
+	OpeningBoardScoreCacheEntries(ByteBuffer boardPartialColumnHashes, ByteBuffer boardScores) {
+		this.boardPartialColumnHashes = boardPartialColumnHashes;
+		this.boardScores = boardScores;
+	}
+	
+	ByteBuffer getBoardPartialColumnHashes() {
+		return boardPartialColumnHashes;
+	}
+	
+	ByteBuffer getBoardScores() {
+		return boardScores;
+	}
+	
+}
@@ -1,13 +1,22 @@
 package net.kite.board.score.cache.opening;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
 public class OpeningBoardScoreCaches {
 	
 	public static final OpeningBoardScoreCache DEFAULT = new OpeningBoardScoreCache();
 	
-	private static final String DEFAULT_RESOURCE_PATH = "/board_score_caches/opening.cfc";
+	public static final String DEFAULT_RESOURCE_PATH = "/board_score_caches/opening.cfc";
+	
+	private static final String DEFAULT_LOADING_THREAD_NAME = "Kite Opening Book Loader";
 	
+	// whether the default cache has been (or is being) loaded
 	private static boolean defaultLoaded;
 	
+	private static CompletableFuture<Void> defaultLoading;
+	
 	public static void ensureDefaultIsLoaded(byte[] prefetchedCacheBytes) {
 		if(defaultLoaded) return;
 		
@@ -21,4 +30,73 @@ public class OpeningBoardScoreCaches {
 		}
 	}
 	
+	// adds a shard to the default cache, which is then no longer loaded from
+	// resources, boards only find the entries of the shards added so far
+	public static void loadDefaultShard(byte[] shardBytes) {
+		synchronized(OpeningBoardScoreCaches.class) {
+			
+			defaultLoaded = true;
+			DEFAULT.loadShardFromBytes(shardBytes);
+		}
+	}
+	
+	// loads the default cache from resources on a separate thread unless it has
+	// already been loaded, boards do not find any entries until it is loaded
+	public static CompletableFuture<Void> loadDefaultAsynchronously() {
+		synchronized(OpeningBoardScoreCaches.class) {
+			
+			if(defaultLoading != null) return defaultLoading;
+			
+			CompletableFuture<Void> loading = new CompletableFuture<>();
+			defaultLoading = loading;
+			
+			if(defaultLoaded) {
+				
+				loading.complete(null);
+				return loading;
+			}
+			
+			defaultLoaded = true;
+			
+			Thread thread = new Thread(() -> {
+				
+				try {
+					
+					DEFAULT.loadFromResources(DEFAULT_RESOURCE_PATH);
+					loading.complete(null);
+					
+				} catch(RuntimeException exception) {
+					
+					loading.completeExceptionally(exception);
+				}
+				
+			}, DEFAULT_LOADING_THREAD_NAME);
+			
+			thread.setDaemon(true);
+			thread.start();
+			
+			return loading;
+		}
+	}
+	
+	// maps the default cache from a file instead of loading it
+	// from resources, which replaces the entries if it was already loaded,
+	// a load that is still running on the loading thread is waited for first
+	// as it would otherwise replace the mapped entries once it finishes
+	public static void loadDefaultFromFile(Path path) throws IOException {
+		synchronized(OpeningBoardScoreCaches.class) {
+			
+			if(defaultLoading != null) defaultLoading.exceptionally(exception -> null).join();
+			
+			DEFAULT.loadFromFile(path);
+			defaultLoaded = true;
+		}
+	}
+	
+	public static void saveDefaultToFile(Path path) throws IOException {
+		loadDefaultAsynchronously().join();
+		
+		DEFAULT.saveToFile(path);
+	}
+	
 }
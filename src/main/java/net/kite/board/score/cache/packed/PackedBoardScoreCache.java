@@ -0,0 +1,310 @@
+package net.kite.board.score.cache.packed;
+
+import net.kite.board.score.cache.BoardScoreCache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.LongAdder;
+
+// the base of score caches that store each entry in a single 64-bit word,
+// entries are grouped into buckets of four entries that are next to each
+// other in memory and a board can be stored in any entry of its bucket,
+// the lower bits of the hash select the bucket and only the remaining
+// upper bits are stored in an entry to verify that it belongs to a board
+// (hashing is a bijection of boards onto 49-bit values so the stored
+// bits together with the bucket identify the board exactly),
+// the lower bits of an entry hold its move, its generation, its work and both
+// score bounds, entries of older generations stay valid but are replaced before
+// any entry of the current generation, the statistics are counted by the boards
+// and only added to the cache once an evaluation is over so that probing never
+// writes to memory that is shared by multiple threads
+public abstract class PackedBoardScoreCache extends BoardScoreCache {
+	
+	public static final int ENTRY_BYTE_SIZE = 8;
+	
+	// the smallest capacity for which the verification bits fit into a single entry
+	public static final int MINIMAL_CAPACITY = 2048;
+	
+	// needs to be changed whenever the layout of
+	// entries or buckets changes in any way
+	public static final int LAYOUT_VERSION = 3;
+	
+	// entries are always stored in little-endian byte order outside of the heap
+	public static final ByteOrder ENTRY_BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	
+	protected static final int BUCKET_SIZE = 4;
+	
+	protected static final long EMPTY_ENTRY = 0;
+	
+	// empty entries are always replaced first
+	protected static final int EMPTY_ENTRY_REPLACEMENT_WORK = Integer.MIN_VALUE;
+	
+	private static final int LOGARITHMIC_BUCKET_SIZE = 2;
+	
+	private static final int ENTRY_FIELD_BIT_AMOUNT = 6;
+	private static final long ENTRY_FIELD_MASK = 0x000000000000003FL;
+	
+	// the generation and the move share a field
+	private static final int ENTRY_HALF_FIELD_BIT_AMOUNT = 3;
+	private static final long ENTRY_HALF_FIELD_MASK = 0x0000000000000007L;
+	
+	private static final int ENTRY_MINIMAL_SCORE_SHIFT_AMOUNT = ENTRY_FIELD_BIT_AMOUNT;
+	private static final int ENTRY_WORK_SHIFT_AMOUNT = 2 * ENTRY_FIELD_BIT_AMOUNT;
+	private static final int ENTRY_GENERATION_SHIFT_AMOUNT = 3 * ENTRY_FIELD_BIT_AMOUNT;
+	private static final int ENTRY_MOVE_SHIFT_AMOUNT = ENTRY_GENERATION_SHIFT_AMOUNT + ENTRY_HALF_FIELD_BIT_AMOUNT;
+	private static final int ENTRY_VERIFICATION_SHIFT_AMOUNT = 4 * ENTRY_FIELD_BIT_AMOUNT;
+	
+	private static final long ENTRY_LOWER_BIT_MASK = 0x0000000000FFFFFFL;
+	
+	// offset just like the values it is compared to
+	// so that a signed comparison compares them unsigned
+	private static final long ENTRY_MATCH_LIMIT = ENTRY_LOWER_BIT_MASK + Long.MIN_VALUE;
+	
+	// entries of older generations count as if they took
+	// less work to compute than any current entry
+	private static final int STALE_ENTRY_WORK_PENALTY = 64;
+	
+	// makes sure that the encoded scores of
+	// a filled entry are never zero
+	private static final int ENTRY_SCORE_OFFSET = 32;
+	
+	private static final int TRANSFER_BUFFER_ENTRY_AMOUNT = 65536;
+	
+	private final int capacity;
+	
+	private final int bucketBitAmount;
+	private final long bucketMask;
+	
+	// volatile as the cache may be aged while other threads are using it, which
+	// is fine as the generation only decides which entries are replaced first
+	private volatile int generation;
+	
+	// added to by all threads using the cache at the end of their evaluations
+	private final LongAdder hitAmount = new LongAdder();
+	private final LongAdder missAmount = new LongAdder();
+	private final LongAdder overwriteAmount = new LongAdder();
+	
+	// the capacity needs to be a power of two
+	protected PackedBoardScoreCache(int capacity) {
+		this.capacity = capacity;
+		
+		int bucketAmount = capacity >>> LOGARITHMIC_BUCKET_SIZE;
+		
+		this.bucketBitAmount = Integer.numberOfTrailingZeros(bucketAmount);
+		this.bucketMask = bucketAmount - 1;
+	}
+	
+	// the key of the first entry of the board's bucket
+	protected int bucket(long hash) {
+		return (int) (hash & bucketMask) << LOGARITHMIC_BUCKET_SIZE;
+	}
+	
+	// the verification bits of the board's entries already shifted into place
+	protected long verification(long hash) {
+		return hash >>> bucketBitAmount << ENTRY_VERIFICATION_SHIFT_AMOUNT;
+	}
+	
+	// the move is stored with an offset so that the missing move is zero
+	protected long entry(long verification, int minimalScore, int maximalScore, int work, int move) {
+		long entry = verification;
+		
+		entry |= (long) (move + 1) << ENTRY_MOVE_SHIFT_AMOUNT;
+		entry |= (long) generation << ENTRY_GENERATION_SHIFT_AMOUNT;
+		entry |= (work & ENTRY_FIELD_MASK) << ENTRY_WORK_SHIFT_AMOUNT;
+		entry |= (long) (minimalScore + ENTRY_SCORE_OFFSET) << ENTRY_MINIMAL_SCORE_SHIFT_AMOUNT;
+		entry |= maximalScore + ENTRY_SCORE_OFFSET;
+		
+		return entry;
+	}
+	
+	// combines the score bounds of a matching entry with new ones and keeps
+	// its move unless there is a new one, which also moves it to the current
+	// generation
+	protected long mergedEntry(long entry, long verification, int minimalScore, int maximalScore, int work, int move) {
+		int min = entryMinimalScore(entry);
+		int max = entryMaximalScore(entry);
+		int w = entryWork(entry);
+		
+		if(min > minimalScore) minimalScore = min;
+		if(max < maximalScore) maximalScore = max;
+		if(w > work) work = w;
+		
+		if(move == MISSING_MOVE) move = entryMove(entry);
+		
+		return entry(verification, minimalScore, maximalScore, work, move);
+	}
+	
+	@Override
+	public void addStatistics(long hitAmount, long missAmount, long overwriteAmount) {
+		this.hitAmount.add(hitAmount);
+		this.missAmount.add(missAmount);
+		this.overwriteAmount.add(overwriteAmount);
+	}
+	
+	protected int entryReplacementWork(long entry) {
+		if(entry == EMPTY_ENTRY) return EMPTY_ENTRY_REPLACEMENT_WORK;
+		
+		int work = entryWork(entry);
+		if(entryGeneration(entry) != generation) work -= STALE_ENTRY_WORK_PENALTY;
+		
+		return work;
+	}
+	
+	// removes all entries and resets the generation and statistics,
+	// the cache should not be used by any board while it is cleared
+	public void clear() {
+		clearEntries();
+		
+		generation = 0;
+		
+		hitAmount.reset();
+		missAmount.reset();
+		overwriteAmount.reset();
+	}
+	
+	// makes all entries stale without touching them, stale entries can still
+	// be found but are replaced before any entry of the new generation,
+	// generations wrap around so very old entries may become current again,
+	// unlike clearing a cache aging it is allowed while it is being used
+	// (a cache that is aged by multiple threads at once might only age once)
+	public void age() {
+		generation = (generation + 1) & (int) ENTRY_HALF_FIELD_MASK;
+	}
+	
+	protected abstract void clearEntries();
+	
+	// the number of filled entries and the number of filled
+	// entries of the current generation, found by visiting all entries
+	public abstract long filledEntryAmount(boolean currentGenerationOnly);
+	
+	protected boolean entryFilled(long entry, boolean currentGenerationOnly) {
+		if(entry == EMPTY_ENTRY) return false;
+		
+		return !currentGenerationOnly || entryGeneration(entry) == generation;
+	}
+	
+	// writes all entries to the channel starting at its current position
+	public abstract void writeEntries(FileChannel channel) throws IOException;
+	
+	// replaces all entries with the ones read from
+	// the channel starting at its current position
+	public abstract void readEntries(FileChannel channel) throws IOException;
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public int getGeneration() {
+		return generation;
+	}
+	
+	public long getHitAmount() {
+		return hitAmount.sum();
+	}
+	
+	public long getMissAmount() {
+		return missAmount.sum();
+	}
+	
+	public long getOverwriteAmount() {
+		return overwriteAmount.sum();
+	}
+	
+	protected static void writeEntries(long[] entries, FileChannel channel) throws IOException {
+		ByteBuffer buffer = transferBuffer();
+		LongBuffer longBuffer = buffer.asLongBuffer();
+		
+		int l = entries.length;
+		for(int i = 0; i < l; i += TRANSFER_BUFFER_ENTRY_AMOUNT) {
+			
+			int n = Math.min(TRANSFER_BUFFER_ENTRY_AMOUNT, l - i);
+			
+			longBuffer.clear();
+			longBuffer.put(entries, i, n);
+			
+			buffer.clear();
+			buffer.limit(n * ENTRY_BYTE_SIZE);
+			
+			while(buffer.hasRemaining()) channel.write(buffer);
+		}
+	}
+	
+	protected static void readEntries(long[] entries, FileChannel channel) throws IOException {
+		ByteBuffer buffer = transferBuffer();
+		LongBuffer longBuffer = buffer.asLongBuffer();
+		
+		int l = entries.length;
+		for(int i = 0; i < l; i += TRANSFER_BUFFER_ENTRY_AMOUNT) {
+			
+			int n = Math.min(TRANSFER_BUFFER_ENTRY_AMOUNT, l - i);
+			
+			buffer.clear();
+			buffer.limit(n * ENTRY_BYTE_SIZE);
+			
+			readFully(buffer, channel);
+			
+			longBuffer.clear();
+			longBuffer.get(entries, i, n);
+		}
+	}
+	
+	protected static void readFully(ByteBuffer buffer, FileChannel channel) throws IOException {
+		while(buffer.hasRemaining()) {
+			
+			if(channel.read(buffer) < 0) throw new EOFException("The score cache entries ended unexpectedly!");
+		}
+	}
+	
+	private static ByteBuffer transferBuffer() {
+		ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_ENTRY_AMOUNT * ENTRY_BYTE_SIZE);
+		
+		return buffer.order(ENTRY_BYTE_ORDER);
+	}
+	
+	// filled entries never have all of their lower bits cleared, so an entry matches if
+	// removing the verification bits leaves a value in between one and the largest lower
+	// bits, which only takes a single (unsigned) comparison as every entry of a bucket
+	// is checked whenever a board is not found
+	protected static boolean entryMatches(long entry, long verification) {
+		long lowerBits = entry ^ verification;
+		
+		return lowerBits - 1 + Long.MIN_VALUE < ENTRY_MATCH_LIMIT;
+	}
+	
+	// both score bounds and the move in the format of BoardScoreCache
+	protected static int entryScores(long entry) {
+		int min = entryMinimalScore(entry);
+		int max = entryMaximalScore(entry);
+		
+		return entry(min, max, entryMove(entry));
+	}
+	
+	private static int entryGeneration(long entry) {
+		return (int) ((entry >>> ENTRY_GENERATION_SHIFT_AMOUNT) & ENTRY_HALF_FIELD_MASK);
+	}
+	
+	private static int entryMove(long entry) {
+		return (int) ((entry >>> ENTRY_MOVE_SHIFT_AMOUNT) & ENTRY_HALF_FIELD_MASK) - 1;
+	}
+	
+	private static int entryWork(long entry) {
+		return (int) ((entry >>> ENTRY_WORK_SHIFT_AMOUNT) & ENTRY_FIELD_MASK);
+	}
+	
+	private static int entryMinimalScore(long entry) {
+		int score = (int) ((entry >>> ENTRY_MINIMAL_SCORE_SHIFT_AMOUNT) & ENTRY_FIELD_MASK);
+		
+		return score - ENTRY_SCORE_OFFSET;
+	}
+	
+	private static int entryMaximalScore(long entry) {
+		int score = (int) (entry & ENTRY_FIELD_MASK);
+		
+		return score - ENTRY_SCORE_OFFSET;
+	}
+	
+}
@@ -0,0 +1,119 @@
+package net.kite.board.score.cache.snapshot;
+
+import net.kite.board.Board;
+import net.kite.board.score.cache.direct.DirectBoardScoreCache;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+// a snapshot file starts with a header that identifies the file, the versions of the snapshot
+// format and the entry layout as well as the hashing scheme that was used to compute the
+// entries and the number of entries, the header is followed by all entries of the cache,
+// snapshots of caches with a different layout or hashing scheme are refused as their
+// entries would silently belong to different boards
+public class BoardScoreCacheSnapshots {
+	
+	private static final int MAGIC_NUMBER = 0x4B495445;
+	private static final int FORMAT_VERSION = 1;
+	
+	// a multiple of eight so that the entries that follow it can be mapped
+	private static final int HEADER_BYTE_SIZE = 64;
+	
+	public static void save(PackedBoardScoreCache scoreCache, Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			
+			ByteBuffer header = header();
+			
+			header.putInt(MAGIC_NUMBER);
+			header.putInt(FORMAT_VERSION);
+			header.putInt(PackedBoardScoreCache.LAYOUT_VERSION);
+			header.putInt(scoreCache.getCapacity());
+			header.putLong(Board.hashFingerprint());
+			
+			header.clear();
+			while(header.hasRemaining()) channel.write(header);
+			
+			scoreCache.writeEntries(channel);
+		}
+	}
+	
+	// copies the entries of the snapshot into a newly created score cache
+	public static <T extends PackedBoardScoreCache> T load(Path path, IntFunction<T> scoreCacheFactory) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			int capacity = readHeader(channel);
+			
+			T scoreCache = scoreCacheFactory.apply(capacity);
+			scoreCache.readEntries(channel);
+			
+			return scoreCache;
+		}
+	}
+	
+	// maps the entries of the snapshot instead of copying them, private mappings
+	// require the file to be writable even though it is never written to
+	public static DirectBoardScoreCache map(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			
+			int capacity = readHeader(channel);
+			
+			long byteSize = (long) capacity * PackedBoardScoreCache.ENTRY_BYTE_SIZE;
+			if(channel.size() < HEADER_BYTE_SIZE + byteSize) throw new IOException("The score cache snapshot is incomplete!");
+			
+			return new DirectBoardScoreCache(capacity, channel, HEADER_BYTE_SIZE);
+		}
+	}
+	
+	// returns the capacity of the snapshot's cache and
+	// leaves the channel at the position of the first entry
+	private static int readHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = header();
+		
+		while(header.hasRemaining()) {
+			
+			if(channel.read(header) < 0) throw new IOException("The score cache snapshot is incomplete!");
+		}
+		
+		header.flip();
+		
+		if(header.getInt() != MAGIC_NUMBER) throw new IOException("The file is not a score cache snapshot!");
+		
+		int formatVersion = header.getInt();
+		if(formatVersion != FORMAT_VERSION) {
+			
+			String errorMessage = String.format("The score cache snapshot has format version %d but only version %d is supported!", formatVersion, FORMAT_VERSION);
+			throw new IOException(errorMessage);
+		}
+		
+		int layoutVersion = header.getInt();
+		if(layoutVersion != PackedBoardScoreCache.LAYOUT_VERSION) {
+			
+			String errorMessage = String.format("The score cache snapshot has entry layout version %d but only version %d is supported!", layoutVersion, PackedBoardScoreCache.LAYOUT_VERSION);
+			throw new IOException(errorMessage);
+		}
+		
+		int capacity = header.getInt();
+		if(capacity < PackedBoardScoreCache.MINIMAL_CAPACITY || Integer.bitCount(capacity) != 1) {
+			
+			String errorMessage = String.format("The score cache snapshot has an invalid capacity of %d entries!", capacity);
+			throw new IOException(errorMessage);
+		}
+		
+		long hashFingerprint = header.getLong();
+		if(hashFingerprint != Board.hashFingerprint()) throw new IOException("The score cache snapshot was created with a different hashing scheme!");
+		
+		return capacity;
+	}
+	
+	private static ByteBuffer header() {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTE_SIZE);
+		
+		return header.order(PackedBoardScoreCache.ENTRY_BYTE_ORDER);
+	}
+	
+}
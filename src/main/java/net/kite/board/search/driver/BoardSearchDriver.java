@@ -0,0 +1,15 @@
+package net.kite.board.search.driver;
+
+// chooses the windows of the searches that evaluate a board, a window is given by its exclusive
+// bounds and a search returns the board's score if it lies inside the window and a bound of the
+// score otherwise, the lower bound of a window must be at least the minimal score and smaller
+// than the upper bound, which must be at most the maximal score (so that every search narrows
+// the range of possible scores), the guess is the score of the previous search or an estimate
+// of the board's score before the first search and always lies between both scores
+public interface BoardSearchDriver {
+	
+	int windowMinimalScore(int minimalScore, int maximalScore, int guess, int searchAmount);
+	
+	int windowMaximalScore(int minimalScore, int maximalScore, int guess, int searchAmount);
+	
+}
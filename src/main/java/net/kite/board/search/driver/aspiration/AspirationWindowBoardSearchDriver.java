@@ -0,0 +1,31 @@
+package net.kite.board.search.driver.aspiration;
+
+import net.kite.board.search.driver.BoardSearchDriver;
+
+// searches a window around the guess whose radius doubles with every search, the first
+// window only contains the guess, so a correct guess is proven by a single search, while
+// a search that fails moves the next window towards the bound it returned
+public class AspirationWindowBoardSearchDriver implements BoardSearchDriver {
+	
+	public static final AspirationWindowBoardSearchDriver INSTANCE = new AspirationWindowBoardSearchDriver();
+	
+	private static final int INITIAL_WINDOW_RADIUS = 1;
+	
+	// keeps the radius from overflowing
+	private static final int MAXIMAL_LOGARITHMIC_WINDOW_RADIUS_GROWTH = 6;
+	
+	@Override
+	public int windowMinimalScore(int minimalScore, int maximalScore, int guess, int searchAmount) {
+		return Math.max(guess - windowRadius(searchAmount), minimalScore);
+	}
+	
+	@Override
+	public int windowMaximalScore(int minimalScore, int maximalScore, int guess, int searchAmount) {
+		return Math.min(guess + windowRadius(searchAmount), maximalScore);
+	}
+	
+	private static int windowRadius(int searchAmount) {
+		return INITIAL_WINDOW_RADIUS << Math.min(searchAmount, MAXIMAL_LOGARITHMIC_WINDOW_RADIUS_GROWTH);
+	}
+	
+}
@@ -0,0 +1,50 @@
+package net.kite.board.search.driver.bisection;
+
+import net.kite.board.search.driver.BoardSearchDriver;
+
+// tests whether the score is above the middle of the range of possible scores, ranges larger
+// than the maximal disabled iterative deepening score range are split closer to a draw instead
+// as most boards are close to a draw and searches for scores close to a draw are faster
+public class BisectionBoardSearchDriver implements BoardSearchDriver {
+	
+	public static final BisectionBoardSearchDriver DEFAULT = new BisectionBoardSearchDriver(11);
+	
+	private final int maximalDisabledIterativeDeepeningScoreRange;
+	
+	public BisectionBoardSearchDriver(int maximalDisabledIterativeDeepeningScoreRange) {
+		this.maximalDisabledIterativeDeepeningScoreRange = maximalDisabledIterativeDeepeningScoreRange;
+	}
+	
+	@Override
+	public int windowMinimalScore(int minimalScore, int maximalScore, int guess, int searchAmount) {
+		int s1 = (minimalScore + maximalScore) >> 1;
+		
+		int range = maximalScore - minimalScore;
+		if(range > maximalDisabledIterativeDeepeningScoreRange) {
+			
+			int s2 = minimalScore >> 1;
+			int s3 = maximalScore >> 1;
+			
+			if(s1 >= 0 && s1 < s3) {
+				
+				s1 = s3;
+				
+			} else if(s1 <= 0 && s1 > s2) {
+				
+				s1 = s2;
+			}
+		}
+		
+		return s1;
+	}
+	
+	@Override
+	public int windowMaximalScore(int minimalScore, int maximalScore, int guess, int searchAmount) {
+		return windowMinimalScore(minimalScore, maximalScore, guess, searchAmount) + 1;
+	}
+	
+	public int getMaximalDisabledIterativeDeepeningScoreRange() {
+		return maximalDisabledIterativeDeepeningScoreRange;
+	}
+	
+}
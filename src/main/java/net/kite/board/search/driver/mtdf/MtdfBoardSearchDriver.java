@@ -0,0 +1,23 @@
+package net.kite.board.search.driver.mtdf;
+
+import net.kite.board.search.driver.BoardSearchDriver;
+
+// mtd(f), tests whether the score is above the guess, which is the bound returned by the
+// previous search, so that the searches walk from the first guess towards the score
+public class MtdfBoardSearchDriver implements BoardSearchDriver {
+	
+	public static final MtdfBoardSearchDriver INSTANCE = new MtdfBoardSearchDriver();
+	
+	@Override
+	public int windowMinimalScore(int minimalScore, int maximalScore, int guess, int searchAmount) {
+		// after a failed high search the guess is the minimal score and
+		// after a failed low search it is the maximal score
+		return Math.min(guess, maximalScore - 1);
+	}
+	
+	@Override
+	public int windowMaximalScore(int minimalScore, int maximalScore, int guess, int searchAmount) {
+		return windowMinimalScore(minimalScore, maximalScore, guess, searchAmount) + 1;
+	}
+	
+}
@@ -20,6 +20,7 @@ import org.teavm.jso.typedarrays.ArrayBuffer;
 import org.teavm.jso.typedarrays.Int8Array;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 public class KiteDemo {
 	
@@ -274,7 +275,24 @@ public class KiteDemo {
 	
 	private static final String REQUEST_METHOD = "GET";
 	private static final String REQUEST_RESPONSE_TYPE = "arraybuffer";
-	private static final String REQUEST_URL = "WEB-INF/classes/board_score_caches/opening.cfc";
+	
+	// the shards of the opening book ordered by depth, the whole
+	// opening book is only requested if the shards are not deployed
+	private static final String[] SHARD_REQUEST_URLS = new String[] {
+			"opening_shards/0-8.kmb",
+			"opening_shards/9-10.kmb",
+			"opening_shards/11-12.kmb",
+			"opening_shards/13-13.kmb",
+			"opening_shards/14-14.kmb"
+	};
+	
+	// the pre-decoded opening book is used without decoding or copying it again,
+	// the bundled one is only requested if the pre-decoded one is not deployed
+	private static final String[] REQUEST_URLS = new String[] {
+			"opening.kob",
+			"WEB-INF/classes/board_score_caches/opening.cfc"
+	};
+	
 	private static final int REQUEST_RETRY_TIME_DELAY = 1000;
 	
 	private static final int SUCCESSFUL_REQUEST_STATUS = 200;
@@ -320,9 +338,53 @@ public class KiteDemo {
 	}
 	
 	public void onStart() {
+		requestOpeningBookShard(0);
+	}
+	
+	// the app is built as soon as the shard of the smallest depths
+	// has been loaded, the other shards are loaded afterwards
+	private void requestOpeningBookShard(int shardIndex) {
+		request(SHARD_REQUEST_URLS[shardIndex], (bytes) -> {
+			
+			OpeningBoardScoreCaches.loadDefaultShard(bytes);
+			
+			if(shardIndex == 0) buildApp();
+			if(shardIndex + 1 < SHARD_REQUEST_URLS.length) requestOpeningBookShard(shardIndex + 1);
+			
+		}, () -> {
+			
+			if(shardIndex == 0) {
+				
+				requestOpeningBook(0);
+				return;
+			}
+			
+			onShardLoadError(shardIndex);
+		});
+	}
+	
+	private void requestOpeningBook(int requestURLIndex) {
+		request(REQUEST_URLS[requestURLIndex], (bytes) -> {
+			
+			OpeningBoardScoreCaches.ensureDefaultIsLoaded(bytes);
+			buildApp();
+			
+		}, () -> {
+			
+			if(requestURLIndex + 1 < REQUEST_URLS.length) {
+				
+				requestOpeningBook(requestURLIndex + 1);
+				return;
+			}
+			
+			onLoadError();
+		});
+	}
+	
+	private void request(String requestURL, Consumer<byte[]> successHandler, Runnable errorHandler) {
 		XMLHttpRequest request = new XMLHttpRequest();
 		
-		request.open(REQUEST_METHOD, REQUEST_URL);
+		request.open(REQUEST_METHOD, requestURL);
 		request.setResponseType(REQUEST_RESPONSE_TYPE);
 		
 		request.onLoad((progressEvent) -> {
@@ -334,34 +396,38 @@ public class KiteDemo {
 				Int8Array array = new Int8Array(arrayBuffer);
 				
 				byte[] bytes = array.copyToJavaArray();
-				OpeningBoardScoreCaches.ensureDefaultIsLoaded(bytes);
-				
-				buildApp();
+				successHandler.accept(bytes);
 				
 			} else {
 				
-				onLoadError();
+				errorHandler.run();
 			}
 		});
 		
 		request.onError((progressEvent) -> {
 			
-			onLoadError();
+			errorHandler.run();
 		});
 		
 		request.onTimeout((progressEvent) -> {
 			
-			onLoadError();
+			errorHandler.run();
 		});
 		
 		request.onAbort((progressEvent) -> {
 			
-			onLoadError();
+			errorHandler.run();
 		});
 		
 		request.send();
 	}
 	
+	private void onShardLoadError(int shardIndex) {
+		System.err.println("An error occurred while loading an opening score cache shard!");
+		
+		Window.setTimeout(() -> requestOpeningBookShard(shardIndex), REQUEST_RETRY_TIME_DELAY);
+	}
+	
 	private void onLoadError() {
 		System.err.println("An error occurred while loading the opening score cache!");
 		
@@ -0,0 +1,43 @@
+package net.kite.search.driver;
+
+/**
+ * Represents the way a solver narrows down the
+ * score of a position using a series of searches.
+ * Each search either proves the score or proves
+ * that the score is above or below a certain score.
+ * All drivers find the same scores but need different
+ * numbers of searches (and node evaluations) to do so,
+ * depending on the evaluated positions.
+ * Choose a driver for a solver using
+ * {@link net.kite.SearchProfile#withSearchDriver(SearchDriver)}.
+ */
+public enum SearchDriver {
+	
+	/**
+	 * Repeatedly tests whether the score is above the
+	 * middle of the remaining range of possible scores,
+	 * large ranges are split closer to a draw.
+	 * This is the driver used by solvers by default.
+	 */
+	BISECTION,
+	
+	/**
+	 * Starts with testing whether the score is above a guess
+	 * (the score of the position evaluated before) and moves the
+	 * tested score to the bound found by the previous test
+	 * (known as MTD(f)).
+	 * It needs few searches when positions are evaluated in
+	 * the order they occur in a game.
+	 */
+	MTDF,
+	
+	/**
+	 * Searches a window of scores around a guess
+	 * (the score of the position evaluated before) that
+	 * only contains the guess at first and is widened
+	 * whenever the score lies outside of it.
+	 * A correct guess is proven by a single search.
+	 */
+	ASPIRATION_WINDOW
+	
+}
@@ -0,0 +1,203 @@
+package net.kite.tool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// sorts records of boards (a column hash and the encoded moves of the board) by column
+// hash and keeps a single record per column hash, the records are collected in runs that
+// are sorted in memory and written to temporary files which are then merged, so that the
+// memory needed does not depend on the number of records, column hashes are never negative
+// so that -1 can mark that no record has been written yet
+public class BoardRecordSorter {
+	
+	public static final int RECORD_BYTE_SIZE = 2 * Long.BYTES;
+	
+	private static final String RUN_FILE_EXTENSION = ".run";
+	
+	private static final int RUN_RECORD_AMOUNT = 1 << 23;
+	private static final int STREAM_BUFFER_BYTE_SIZE = 1 << 16;
+	
+	// the largest number of records that are sorted by insertion
+	private static final int INSERTION_SORT_RECORD_AMOUNT = 16;
+	
+	private static final long NO_COLUMN_HASH = -1;
+	
+	private final String runPathPrefix;
+	
+	private final long[] columnHashes = new long[RUN_RECORD_AMOUNT];
+	private final long[] moves = new long[RUN_RECORD_AMOUNT];
+	
+	private int size;
+	
+	private final List<Path> runPaths = new ArrayList<>();
+	
+	public BoardRecordSorter(String runPathPrefix) {
+		this.runPathPrefix = runPathPrefix;
+	}
+	
+	public void add(long columnHash, long boardMoves) throws IOException {
+		if(size == RUN_RECORD_AMOUNT) writeRun();
+		
+		columnHashes[size] = columnHash;
+		moves[size] = boardMoves;
+		
+		size++;
+	}
+	
+	// writes the sorted records without duplicates to the given file, deletes
+	// the runs and returns the number of written records
+	public long sortInto(Path path) throws IOException {
+		if(size > 0) writeRun();
+		
+		int runAmount = runPaths.size();
+		
+		DataInputStream[] runs = new DataInputStream[runAmount];
+		long[] runColumnHashes = new long[runAmount];
+		long[] runMoves = new long[runAmount];
+		
+		PriorityQueue<Integer> runQueue = new PriorityQueue<>(Math.max(runAmount, 1), (i, j) -> Long.compare(runColumnHashes[i], runColumnHashes[j]));
+		
+		long recordAmount = 0;
+		
+		try(DataOutputStream output = outputStream(path)) {
+			
+			for(int i = 0; i < runAmount; i++) {
+				
+				runs[i] = inputStream(runPaths.get(i));
+				if(readRecord(runs[i], runColumnHashes, runMoves, i)) runQueue.add(i);
+			}
+			
+			long lastColumnHash = NO_COLUMN_HASH;
+			
+			while(!runQueue.isEmpty()) {
+				
+				int i = runQueue.poll();
+				
+				if(runColumnHashes[i] != lastColumnHash) {
+					
+					lastColumnHash = runColumnHashes[i];
+					
+					output.writeLong(runColumnHashes[i]);
+					output.writeLong(runMoves[i]);
+					
+					recordAmount++;
+				}
+				
+				if(readRecord(runs[i], runColumnHashes, runMoves, i)) runQueue.add(i);
+			}
+			
+		} finally {
+			
+			for(DataInputStream run : runs) {
+				
+				if(run != null) run.close();
+			}
+			
+			for(Path runPath : runPaths) Files.deleteIfExists(runPath);
+			runPaths.clear();
+		}
+		
+		return recordAmount;
+	}
+	
+	private void writeRun() throws IOException {
+		sort(0, size);
+		
+		Path runPath = Path.of(runPathPrefix + runPaths.size() + RUN_FILE_EXTENSION);
+		runPaths.add(runPath);
+		
+		try(DataOutputStream output = outputStream(runPath)) {
+			
+			for(int i = 0; i < size; i++) {
+				
+				if(i > 0 && columnHashes[i] == columnHashes[i - 1]) continue;
+				
+				output.writeLong(columnHashes[i]);
+				output.writeLong(moves[i]);
+			}
+		}
+		
+		size = 0;
+	}
+	
+	// sorts the records from the start (inclusive) to the end (exclusive) by column hash
+	private void sort(int start, int end) {
+		while(end - start > INSERTION_SORT_RECORD_AMOUNT) {
+			
+			long pivot = columnHashes[(start + end - 1) >>> 1];
+			
+			int i = start - 1;
+			int j = end;
+			
+			while(true) {
+				
+				do i++; while(columnHashes[i] < pivot);
+				do j--; while(columnHashes[j] > pivot);
+				
+				if(i >= j) break;
+				swap(i, j);
+			}
+			
+			// the smaller part is sorted recursively so that the recursion stays shallow
+			if(j + 1 - start < end - j - 1) {
+				
+				sort(start, j + 1);
+				start = j + 1;
+				
+			} else {
+				
+				sort(j + 1, end);
+				end = j + 1;
+			}
+		}
+		
+		for(int i = start + 1; i < end; i++) {
+			
+			for(int j = i; j > start && columnHashes[j - 1] > columnHashes[j]; j--) swap(j - 1, j);
+		}
+	}
+	
+	private void swap(int i, int j) {
+		long columnHash = columnHashes[i];
+		columnHashes[i] = columnHashes[j];
+		columnHashes[j] = columnHash;
+		
+		long boardMoves = moves[i];
+		moves[i] = moves[j];
+		moves[j] = boardMoves;
+	}
+	
+	public static DataInputStream inputStream(Path path) throws IOException {
+		return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), STREAM_BUFFER_BYTE_SIZE));
+	}
+	
+	public static DataOutputStream outputStream(Path path) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), STREAM_BUFFER_BYTE_SIZE));
+	}
+	
+	// reads the next record of a run into the given index of the
+	// arrays and returns whether the run had another record
+	private static boolean readRecord(DataInputStream run, long[] columnHashes, long[] moves, int index) throws IOException {
+		try {
+			
+			columnHashes[index] = run.readLong();
+			
+		} catch(EOFException exception) {
+			
+			return false;
+		}
+		
+		moves[index] = run.readLong();
+		return true;
+	}
+	
+}
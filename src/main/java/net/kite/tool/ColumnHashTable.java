@@ -0,0 +1,139 @@
+package net.kite.tool;
+
+import net.kite.board.score.book.BoardScoreBook;
+
+import java.util.Arrays;
+
+// an open addressing table that maps column hashes onto scores, column
+// hashes are never negative so that -1 can mark empty slots
+public class ColumnHashTable {
+	
+	private static final long EMPTY_COLUMN_HASH = -1;
+	
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	
+	private long[] columnHashes;
+	private byte[] scores;
+	
+	private int mask;
+	private int size;
+	
+	public ColumnHashTable() {
+		allocate(INITIAL_CAPACITY);
+	}
+	
+	// returns whether the column hash has been added,
+	// the score of a contained column hash is kept
+	public boolean put(long columnHash, int score) {
+		int index = index(columnHash);
+		if(columnHashes[index] == columnHash) return false;
+		
+		columnHashes[index] = columnHash;
+		scores[index] = (byte) score;
+		
+		size++;
+		if(2 * size > columnHashes.length) grow();
+		
+		return true;
+	}
+	
+	public boolean contains(long columnHash) {
+		int index = index(columnHash);
+		
+		return columnHashes[index] == columnHash;
+	}
+	
+	public int score(long columnHash) {
+		int index = index(columnHash);
+		if(columnHashes[index] != columnHash) return BoardScoreBook.MISSING_BOARD_SCORE;
+		
+		return scores[index];
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public long[] columnHashes() {
+		long[] result = new long[size];
+		int n = 0;
+		
+		for(long columnHash : columnHashes) {
+			
+			if(columnHash != EMPTY_COLUMN_HASH) result[n++] = columnHash;
+		}
+		
+		return result;
+	}
+	
+	// in the order of columnHashes()
+	public byte[] scores() {
+		byte[] result = new byte[size];
+		int n = 0;
+		
+		int l = columnHashes.length;
+		for(int i = 0; i < l; i++) {
+			
+			if(columnHashes[i] != EMPTY_COLUMN_HASH) result[n++] = scores[i];
+		}
+		
+		return result;
+	}
+	
+	// the slot that holds the column hash or the empty slot it would be put into
+	private int index(long columnHash) {
+		int index = (int) ((columnHash * HASH_MULTIPLIER) >>> Integer.SIZE) & mask;
+		
+		while(true) {
+			
+			long c = columnHashes[index];
+			if(c == columnHash || c == EMPTY_COLUMN_HASH) return index;
+			
+			index = (index + 1) & mask;
+		}
+	}
+	
+	private void grow() {
+		long[] oldColumnHashes = columnHashes;
+		byte[] oldScores = scores;
+		
+		allocate(2 * oldColumnHashes.length);
+		
+		int l = oldColumnHashes.length;
+		for(int i = 0; i < l; i++) {
+			
+			long columnHash = oldColumnHashes[i];
+			if(columnHash == EMPTY_COLUMN_HASH) continue;
+			
+			int index = index(columnHash);
+			
+			columnHashes[index] = columnHash;
+			scores[index] = oldScores[i];
+		}
+	}
+	
+	private void allocate(int capacity) {
+		columnHashes = new long[capacity];
+		scores = new byte[capacity];
+		
+		Arrays.fill(columnHashes, EMPTY_COLUMN_HASH);
+		mask = capacity - 1;
+	}
+	
+	// the number of non-zero digits of a column hash, which
+	// is the number of played moves of its board
+	public static int stoneAmount(long columnHash) {
+		int n = 0;
+		
+		while(columnHash != 0) {
+			
+			if(columnHash % 3 != 0) n++;
+			columnHash /= 3;
+		}
+		
+		return n;
+	}
+	
+}
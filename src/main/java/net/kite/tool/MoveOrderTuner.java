@@ -0,0 +1,392 @@
+package net.kite.tool;
+
+import net.kite.board.Board;
+import net.kite.board.order.BoardMoveOrder;
+import net.kite.board.score.book.disabled.DisabledBoardScoreBook;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// tunes the move order (the weights of the move score features and the cell scores of both
+// players) for a corpus of boards by minimizing the total number of node evaluations needed
+// to evaluate all of them without an opening book, the move order is tuned using simultaneous
+// perturbation stochastic approximation (spsa), which estimates the gradient of the logarithm
+// of the node amount from only two evaluations of the corpus per iteration (one with all
+// parameters moved up or down at random and one with all of them moved the other way), both
+// evaluations are spread across all threads, as node amounts are deterministic the tuning is
+// reproducible for a given seed, the cell scores are kept symmetrical and the best move order
+// that was evaluated is printed in the format of the default move order, the arguments are the
+// path of the corpus (a file with the moves of one board per line or "-" for random boards in
+// the middle of the game), the number of iterations, the number of threads (all processors by
+// default), the score cache capacity given as a power of two and the seed
+public class MoveOrderTuner {
+	
+	private static final String RANDOM_CORPUS_PATH = "-";
+	
+	private static final int RANDOM_CORPUS_SIZE = 64;
+	private static final int RANDOM_CORPUS_MINIMAL_DEPTH = 10;
+	private static final int RANDOM_CORPUS_MAXIMAL_DEPTH = 16;
+	
+	private static final int DEFAULT_ITERATION_AMOUNT = 200;
+	private static final int DEFAULT_CAPACITY_EXPONENT = 20;
+	private static final long DEFAULT_SEED = 0;
+	
+	private static final String THREAD_NAME = "Kite move order tuning thread";
+	
+	private static final int WEIGHT_AMOUNT = 4;
+	
+	// the cell scores of the left columns and of the middle column, the
+	// scores of the right columns are those of the mirrored left columns
+	private static final int TUNED_COLUMN_AMOUNT = 4;
+	private static final int TUNED_CELL_SCORE_AMOUNT = TUNED_COLUMN_AMOUNT * 6;
+	
+	private static final int PARAMETER_AMOUNT = WEIGHT_AMOUNT + 2 * TUNED_CELL_SCORE_AMOUNT;
+	
+	private static final int BITBOARD_COLUMN_LENGTH = 8;
+	private static final int LARGEST_COLUMN_INDEX = 6;
+	
+	// the usual spsa gain sequence exponents and stability constant, the
+	// perturbation is given in move score units and the learning rate is
+	// chosen so that the first step moves parameters by the initial step
+	private static final double LEARNING_RATE_DECAY_EXPONENT = 0.602;
+	private static final double PERTURBATION_DECAY_EXPONENT = 0.101;
+	private static final double LEARNING_RATE_STABILITY_CONSTANT = 10;
+	
+	private static final double PERTURBATION = 24;
+	private static final double INITIAL_STEP = 12;
+	
+	private final List<String> corpus;
+	private final int threadAmount;
+	private final int capacity;
+	
+	private final ExecutorService threadPool;
+	
+	private final Random random;
+	
+	private long bestNodeAmount = Long.MAX_VALUE;
+	private BoardMoveOrder bestMoveOrder;
+	
+	private MoveOrderTuner(List<String> corpus, int threadAmount, int capacity, long seed) {
+		this.corpus = corpus;
+		this.threadAmount = threadAmount;
+		this.capacity = capacity;
+		
+		this.threadPool = Executors.newFixedThreadPool(threadAmount, MoveOrderTuner::createThread);
+		this.random = new Random(seed);
+	}
+	
+	private void tune(int iterationAmount) {
+		double[] parameters = parameters(BoardMoveOrder.DEFAULT);
+		
+		long initialNodeAmount = nodeAmounts(new BoardMoveOrder[] {BoardMoveOrder.DEFAULT})[0];
+		record(BoardMoveOrder.DEFAULT, initialNodeAmount);
+		
+		String initialResult = String.format("default move order: %d node evaluations", initialNodeAmount);
+		System.out.println(initialResult);
+		
+		double learningRate = 0;
+		
+		for(int k = 0; k < iterationAmount; k++) {
+			
+			double perturbation = PERTURBATION / Math.pow(k + 1, PERTURBATION_DECAY_EXPONENT);
+			
+			double[] directions = new double[PARAMETER_AMOUNT];
+			double[] upperParameters = new double[PARAMETER_AMOUNT];
+			double[] lowerParameters = new double[PARAMETER_AMOUNT];
+			
+			for(int i = 0; i < PARAMETER_AMOUNT; i++) {
+				
+				directions[i] = random.nextBoolean() ? 1 : -1;
+				
+				upperParameters[i] = parameters[i] + perturbation * directions[i];
+				lowerParameters[i] = parameters[i] - perturbation * directions[i];
+			}
+			
+			BoardMoveOrder upperMoveOrder = moveOrder(upperParameters);
+			BoardMoveOrder lowerMoveOrder = moveOrder(lowerParameters);
+			
+			long[] nodeAmounts = nodeAmounts(new BoardMoveOrder[] {upperMoveOrder, lowerMoveOrder});
+			
+			record(upperMoveOrder, nodeAmounts[0]);
+			record(lowerMoveOrder, nodeAmounts[1]);
+			
+			double difference = Math.log(nodeAmounts[0]) - Math.log(nodeAmounts[1]);
+			
+			// every component of the gradient estimate has the same magnitude
+			double gradientMagnitude = Math.abs(difference) / (2 * perturbation);
+			
+			if(learningRate == 0 && gradientMagnitude != 0) {
+				
+				learningRate = INITIAL_STEP * Math.pow(1 + LEARNING_RATE_STABILITY_CONSTANT, LEARNING_RATE_DECAY_EXPONENT) / gradientMagnitude;
+			}
+			
+			double step = learningRate / Math.pow(k + 1 + LEARNING_RATE_STABILITY_CONSTANT, LEARNING_RATE_DECAY_EXPONENT);
+			
+			for(int i = 0; i < PARAMETER_AMOUNT; i++) {
+				
+				double gradient = difference / (2 * perturbation * directions[i]);
+				parameters[i] = Math.max(parameters[i] - step * gradient, 0);
+			}
+			
+			String progress = String.format("iteration %d: %d and %d node evaluations, best %d", k + 1, nodeAmounts[0], nodeAmounts[1], bestNodeAmount);
+			System.out.println(progress);
+		}
+		
+		threadPool.shutdown();
+		
+		double ratio = (double) bestNodeAmount / initialNodeAmount;
+		
+		String result = String.format("best move order: %d node evaluations (%.1f%% of the default move order)", bestNodeAmount, 100 * ratio);
+		System.out.println(result);
+		System.out.println(moveOrderString(bestMoveOrder));
+	}
+	
+	private void record(BoardMoveOrder moveOrder, long nodeAmount) {
+		if(nodeAmount >= bestNodeAmount) return;
+		
+		bestNodeAmount = nodeAmount;
+		bestMoveOrder = moveOrder;
+	}
+	
+	// the total number of node evaluations of the corpus for each
+	// move order, all boards of all move orders are evaluated in parallel
+	private long[] nodeAmounts(BoardMoveOrder[] moveOrders) {
+		int n = corpus.size();
+		int taskAmount = moveOrders.length * n;
+		
+		AtomicInteger nextTask = new AtomicInteger();
+		AtomicLongArray nodeAmounts = new AtomicLongArray(moveOrders.length);
+		
+		List<Future<?>> futures = new ArrayList<>();
+		
+		for(int i = 0; i < threadAmount; i++) {
+			
+			futures.add(threadPool.submit(() -> {
+				
+				LocalBoardScoreCache scoreCache = new LocalBoardScoreCache(capacity);
+				
+				while(true) {
+					
+					int task = nextTask.getAndIncrement();
+					if(task >= taskAmount) return;
+					
+					int moveOrderIndex = task / n;
+					
+					scoreCache.clear();
+					
+					Board board = Board.boardWithMoves(corpus.get(task % n), scoreCache);
+					
+					board.setOpeningBook(DisabledBoardScoreBook.INSTANCE);
+					board.setMoveOrder(moveOrders[moveOrderIndex]);
+					
+					board.evaluate();
+					nodeAmounts.addAndGet(moveOrderIndex, board.getNodeAmount());
+				}
+			}));
+		}
+		
+		for(Future<?> future : futures) {
+			
+			try {
+				
+				future.get();
+				
+			} catch(InterruptedException exception) {
+				
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("The move order tuning was interrupted!", exception);
+				
+			} catch(ExecutionException exception) {
+				
+				throw new IllegalStateException("A board could not be evaluated!", exception.getCause());
+			}
+		}
+		
+		long[] result = new long[moveOrders.length];
+		for(int i = 0; i < moveOrders.length; i++) result[i] = nodeAmounts.get(i);
+		
+		return result;
+	}
+	
+	public static void main(String[] args) throws IOException {
+		String corpusPath = args.length > 0 ? args[0] : RANDOM_CORPUS_PATH;
+		
+		int iterationAmount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATION_AMOUNT;
+		int threadAmount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		int capacityExponent = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CAPACITY_EXPONENT;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+		
+		List<String> corpus = corpusPath.equals(RANDOM_CORPUS_PATH) ? randomCorpus(seed) : corpus(Path.of(corpusPath));
+		
+		if(corpus.isEmpty()) {
+			
+			System.err.println("The corpus does not contain any board!");
+			return;
+		}
+		
+		MoveOrderTuner tuner = new MoveOrderTuner(corpus, threadAmount, 1 << capacityExponent, seed);
+		tuner.tune(iterationAmount);
+	}
+	
+	private static List<String> corpus(Path path) throws IOException {
+		List<String> corpus = new ArrayList<>();
+		
+		for(String line : Files.readAllLines(path)) {
+			
+			String moves = line.trim();
+			if(!moves.isEmpty()) corpus.add(moves);
+		}
+		
+		return corpus;
+	}
+	
+	// boards that are reached by random moves and in which the game is not over and
+	// the player at turn can not win immediately (as those are evaluated instantly)
+	private static List<String> randomCorpus(long seed) {
+		Random random = new Random(seed);
+		List<String> corpus = new ArrayList<>();
+		
+		Board board = new Board(new LocalBoardScoreCache(PackedBoardScoreCache.MINIMAL_CAPACITY));
+		int width = Board.getWidth();
+		
+		while(corpus.size() < RANDOM_CORPUS_SIZE) {
+			
+			while(board.playedMoveAmount() > 0) board.undoMove();
+			
+			int depth = RANDOM_CORPUS_MINIMAL_DEPTH + random.nextInt(RANDOM_CORPUS_MAXIMAL_DEPTH - RANDOM_CORPUS_MINIMAL_DEPTH + 1);
+			
+			while(board.playedMoveAmount() < depth && board.canPlayMoves()) {
+				
+				int x = random.nextInt(width);
+				if(board.moveLegal(x)) board.playMove(x);
+			}
+			
+			if(board.over() || OpeningBookGenerator.hasImmediateWin(board)) continue;
+			
+			corpus.add(board.movesString());
+		}
+		
+		return corpus;
+	}
+	
+	// the weights followed by the cell scores of the left and middle columns of both players
+	private static double[] parameters(BoardMoveOrder moveOrder) {
+		double[] parameters = new double[PARAMETER_AMOUNT];
+		
+		parameters[0] = moveOrder.getConnectionOpportunityWeight();
+		parameters[1] = moveOrder.getColumnForkWeight();
+		parameters[2] = moveOrder.getImmediateThreatWeight();
+		parameters[3] = moveOrder.getSoonThreatWeight();
+		
+		int[] redCellScores = moveOrder.getRedCellScores();
+		int[] yellowCellScores = moveOrder.getYellowCellScores();
+		
+		for(int i = 0; i < TUNED_CELL_SCORE_AMOUNT; i++) {
+			
+			int p = cellPosition(i);
+			
+			parameters[WEIGHT_AMOUNT + i] = redCellScores[p];
+			parameters[WEIGHT_AMOUNT + TUNED_CELL_SCORE_AMOUNT + i] = yellowCellScores[p];
+		}
+		
+		return parameters;
+	}
+	
+	private static BoardMoveOrder moveOrder(double[] parameters) {
+		int[] redCellScores = new int[BoardMoveOrder.CELL_SCORE_AMOUNT];
+		int[] yellowCellScores = new int[BoardMoveOrder.CELL_SCORE_AMOUNT];
+		
+		for(int i = 0; i < TUNED_CELL_SCORE_AMOUNT; i++) {
+			
+			int p = cellPosition(i);
+			int mirroredP = (LARGEST_COLUMN_INDEX * BITBOARD_COLUMN_LENGTH) - p + 2 * (p % BITBOARD_COLUMN_LENGTH);
+			
+			int redCellScore = (int) Math.round(parameters[WEIGHT_AMOUNT + i]);
+			int yellowCellScore = (int) Math.round(parameters[WEIGHT_AMOUNT + TUNED_CELL_SCORE_AMOUNT + i]);
+			
+			redCellScores[p] = redCellScore;
+			redCellScores[mirroredP] = redCellScore;
+			
+			yellowCellScores[p] = yellowCellScore;
+			yellowCellScores[mirroredP] = yellowCellScore;
+		}
+		
+		int connectionOpportunityWeight = (int) Math.round(parameters[0]);
+		int columnForkWeight = (int) Math.round(parameters[1]);
+		int immediateThreatWeight = (int) Math.round(parameters[2]);
+		int soonThreatWeight = (int) Math.round(parameters[3]);
+		
+		return new BoardMoveOrder(connectionOpportunityWeight, columnForkWeight, immediateThreatWeight, soonThreatWeight, redCellScores, yellowCellScores);
+	}
+	
+	// the bitboard position of a tuned cell score
+	private static int cellPosition(int i) {
+		int x = i / 6;
+		int y = i % 6;
+		
+		return x * BITBOARD_COLUMN_LENGTH + y;
+	}
+	
+	// the move order as the arguments of its constructor
+	private static String moveOrderString(BoardMoveOrder moveOrder) {
+		StringBuilder stringBuilder = new StringBuilder();
+		
+		String weights = String.format("%d, %d, %d, %d,", moveOrder.getConnectionOpportunityWeight(), moveOrder.getColumnForkWeight(), moveOrder.getImmediateThreatWeight(), moveOrder.getSoonThreatWeight());
+		stringBuilder.append(weights).append(System.lineSeparator());
+		
+		appendCellScores(stringBuilder, moveOrder.getRedCellScores());
+		stringBuilder.append(',').append(System.lineSeparator());
+		
+		appendCellScores(stringBuilder, moveOrder.getYellowCellScores());
+		
+		return stringBuilder.toString();
+	}
+	
+	private static void appendCellScores(StringBuilder stringBuilder, int[] cellScores) {
+		stringBuilder.append("new int[] {").append(System.lineSeparator());
+		
+		int l = cellScores.length;
+		for(int i = 0; i < l; i++) {
+			
+			if(i % BITBOARD_COLUMN_LENGTH == 0) stringBuilder.append('\t');
+			
+			String cellScore = String.format("%3d", cellScores[i]);
+			stringBuilder.append(cellScore);
+			
+			if(i == l - 1) {
+				
+				stringBuilder.append(System.lineSeparator());
+				
+			} else if(i % BITBOARD_COLUMN_LENGTH == BITBOARD_COLUMN_LENGTH - 1) {
+				
+				stringBuilder.append(',').append(System.lineSeparator());
+				
+			} else {
+				
+				stringBuilder.append(", ");
+			}
+		}
+		
+		stringBuilder.append('}');
+	}
+	
+	private static Thread createThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, THREAD_NAME);
+		thread.setDaemon(true);
+		
+		return thread;
+	}
+	
+}
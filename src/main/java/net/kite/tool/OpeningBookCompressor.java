@@ -0,0 +1,134 @@
+package net.kite.tool;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.BoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBookWriter;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCache;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCaches;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// converts an opening book file (or the built-in opening book) into the compressed
+// format, as an opening book only stores partial column hashes its boards are found
+// by visiting every board up to its maximal depth once (which needs a few gigabytes
+// of memory for the built-in opening book), the arguments are the path of the
+// compressed book, the path of the opening book ("-" for the built-in one) and
+// the number of fingerprint bits per entry (from 8 to 16)
+public class OpeningBookCompressor {
+	
+	static final String BUILT_IN_OPENING_BOOK_PATH = "-";
+	
+	private static final double BYTES_PER_MEGABYTE = 1048576;
+	
+	private final BoardScoreBook openingBook;
+	private final int maximalDepth;
+	
+	// the boards with less than the maximal depth that have been visited
+	private final ColumnHashTable visitedBoards = new ColumnHashTable();
+	private final ColumnHashTable foundBoards = new ColumnHashTable();
+	
+	private OpeningBookCompressor(BoardScoreBook openingBook) {
+		this.openingBook = openingBook;
+		this.maximalDepth = openingBook.maximalDepth();
+	}
+	
+	private void visit(Board board) {
+		long columnHash = board.columnHash();
+		int n = board.playedMoveAmount();
+		
+		if(n < maximalDepth) {
+			
+			if(!visitedBoards.put(columnHash, 0)) return;
+			
+		} else if(foundBoards.contains(columnHash)) {
+			
+			return;
+		}
+		
+		int score = openingBook.boardScore(board);
+		if(score != BoardScoreBook.MISSING_BOARD_SCORE) foundBoards.put(columnHash, score);
+		
+		if(n == maximalDepth) return;
+		
+		int width = Board.getWidth();
+		for(int x = 0; x < width; x++) {
+			
+			if(!board.moveLegal(x)) continue;
+			
+			board.playMove(x);
+			if(board.canPlayMoves()) visit(board);
+			board.undoMove();
+		}
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			
+			System.err.println("The path of the compressed opening book is missing!");
+			return;
+		}
+		
+		Path path = Path.of(args[0]);
+		
+		String openingBookPath = args.length > 1 ? args[1] : BUILT_IN_OPENING_BOOK_PATH;
+		int fingerprintBitAmount = args.length > 2 ? Integer.parseInt(args[2]) : CompressedBoardScoreBookWriter.DEFAULT_FINGERPRINT_BIT_AMOUNT;
+		
+		if(fingerprintBitAmount < CompressedBoardScoreBook.SMALLEST_FINGERPRINT_BIT_AMOUNT || fingerprintBitAmount > CompressedBoardScoreBook.LARGEST_FINGERPRINT_BIT_AMOUNT) {
+			
+			String errorMessage = String.format("The fingerprint size must be between %d and %d bits!", CompressedBoardScoreBook.SMALLEST_FINGERPRINT_BIT_AMOUNT, CompressedBoardScoreBook.LARGEST_FINGERPRINT_BIT_AMOUNT);
+			System.err.println(errorMessage);
+			return;
+		}
+		
+		OpeningBoardScoreCache openingBook = openingBook(openingBookPath);
+		if(openingBook == null) return;
+		
+		ColumnHashTable foundBoards = foundBoards(openingBook);
+		
+		CompressedBoardScoreBookWriter writer = new CompressedBoardScoreBookWriter(foundBoards.columnHashes(), foundBoards.scores(), 0, openingBook.maximalDepth(), fingerprintBitAmount);
+		writer.writeToFile(path);
+		
+		CompressedBoardScoreBook compressedBook = CompressedBoardScoreBook.fromFile(path);
+		int n = compressedBook.getEntryAmount();
+		
+		long openingBookByteSize = 2L * openingBook.getCapacity();
+		long compressedBookByteSize = Files.size(path);
+		
+		System.out.println("boards | opening book megabytes | compressed megabytes | bits per board");
+		
+		double bitsPerBoard = n == 0 ? 0 : (double) Byte.SIZE * compressedBookByteSize / n;
+		
+		String result = String.format("%d | %.1f | %.1f | %.2f", n, openingBookByteSize / BYTES_PER_MEGABYTE, compressedBookByteSize / BYTES_PER_MEGABYTE, bitsPerBoard);
+		System.out.println(result);
+	}
+	
+	// the opening book file at the given path or the loaded built-in
+	// opening book ("-"), null if the built-in one could not be loaded
+	static OpeningBoardScoreCache openingBook(String openingBookPath) throws IOException {
+		if(!openingBookPath.equals(BUILT_IN_OPENING_BOOK_PATH)) return OpeningBoardScoreCache.fromFile(Path.of(openingBookPath));
+		
+		OpeningBoardScoreCaches.loadDefaultAsynchronously().join();
+		
+		OpeningBoardScoreCache openingBook = OpeningBoardScoreCaches.DEFAULT;
+		if(openingBook.loaded()) return openingBook;
+		
+		System.err.println("The built-in opening book could not be loaded!");
+		return null;
+	}
+	
+	// the column hashes and scores of all boards found in the opening book
+	static ColumnHashTable foundBoards(BoardScoreBook openingBook) {
+		OpeningBookCompressor compressor = new OpeningBookCompressor(openingBook);
+		
+		Board board = new Board(new LocalBoardScoreCache(PackedBoardScoreCache.MINIMAL_CAPACITY));
+		compressor.visit(board);
+		
+		return compressor.foundBoards;
+	}
+	
+}
@@ -0,0 +1,579 @@
+package net.kite.tool;
+
+import net.kite.board.Board;
+import net.kite.board.outcome.BoardOutcome;
+import net.kite.board.score.book.BoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBookWriter;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCache;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// generates an opening book that contains every board (up to mirroring) with at most the
+// given number of played moves which is not over and in which the player at turn can not
+// win immediately (as those boards are never looked up), the boards of every ply are first
+// enumerated from the boards of the previous ply into a ply file on disk which is sorted by
+// column hash and holds every board only once, then the boards are solved one ply at a time
+// starting with the deepest one so that every board can already use the solved boards of
+// the next ply as its opening book, the boards of a ply are solved in parallel and every
+// solved board is appended to a checkpoint file from which an interrupted generation resumes,
+// only the solved boards of the ply being solved and of the next ply are kept in memory, the
+// arguments are the path of the opening book (a path ending with ".kob" results in the
+// regular format while any other path results in the compressed format), the maximal depth
+// and the number of threads (all processors by default)
+public class OpeningBookGenerator {
+	
+	private static final String REGULAR_FORMAT_FILE_EXTENSION = ".kob";
+	private static final String CHECKPOINT_FILE_EXTENSION = ".checkpoint";
+	private static final String PLY_FILE_EXTENSION = ".ply";
+	private static final String INCOMPLETE_FILE_EXTENSION = ".incomplete";
+	
+	private static final String THREAD_NAME = "Kite opening book generation thread";
+	
+	// the moves of a board are encoded using three bits per move
+	private static final int MOVE_BIT_AMOUNT = 3;
+	private static final long MOVE_MASK = 0x0000000000000007L;
+	
+	private static final int LARGEST_MAXIMAL_DEPTH = Long.SIZE / MOVE_BIT_AMOUNT;
+	
+	private static final int CHECKPOINT_MAGIC_NUMBER = 0x4B4F4750;
+	private static final int CHECKPOINT_HEADER_BYTE_SIZE = 2 * Integer.BYTES;
+	private static final int CHECKPOINT_RECORD_BYTE_SIZE = Long.BYTES + Byte.BYTES;
+	
+	// the number of boards that are solved in between two checkpoints
+	private static final int CHECKPOINT_BOARD_AMOUNT = 4096;
+	
+	private static final int SCORE_CACHE_CAPACITY = 1 << 21;
+	
+	private static final int REGULAR_FORMAT_SLOTS_PER_BOARD = 2;
+	
+	private static final double NANOSECONDS_PER_SECOND = 1000000000;
+	
+	private final int maximalDepth;
+	private final int threadAmount;
+	
+	private final String path;
+	private final Path checkpointPath;
+	
+	// the number of boards in the file of each ply
+	private final long[] plyBoardAmounts;
+	
+	// the boards that are solved are looked up in the next ply, which is only
+	// replaced in between two plies so that the solving threads can read it
+	// without locking
+	private SolvedPly nextPly;
+	
+	private final Board[] boards;
+	
+	private OpeningBookGenerator(int maximalDepth, int threadAmount, String path) {
+		this.maximalDepth = maximalDepth;
+		this.threadAmount = threadAmount;
+		
+		this.path = path;
+		this.checkpointPath = Path.of(path + CHECKPOINT_FILE_EXTENSION);
+		
+		this.plyBoardAmounts = new long[maximalDepth + 1];
+		
+		BoardScoreBook openingBook = new NextPlyBoardScoreBook();
+		this.boards = new Board[threadAmount];
+		
+		for(int i = 0; i < threadAmount; i++) {
+			
+			Board board = new Board(new LocalBoardScoreCache(SCORE_CACHE_CAPACITY));
+			board.setOpeningBook(openingBook);
+			
+			boards[i] = board;
+		}
+	}
+	
+	private void generate() throws IOException {
+		enumeratePlies();
+		
+		SolvedPly resumedPly = loadCheckpoint();
+		int startDepth = resumedPly == null ? maximalDepth : resumedPly.depth;
+		
+		ExecutorService threadPool = Executors.newFixedThreadPool(threadAmount, OpeningBookGenerator::createThread);
+		
+		try(OutputStream checkpointStream = Files.newOutputStream(checkpointPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			
+			DataOutputStream checkpoint = new DataOutputStream(new BufferedOutputStream(checkpointStream));
+			
+			if(Files.size(checkpointPath) == 0) {
+				
+				checkpoint.writeInt(CHECKPOINT_MAGIC_NUMBER);
+				checkpoint.writeInt(maximalDepth);
+				checkpoint.flush();
+			}
+			
+			for(int depth = startDepth; depth >= 0; depth--) {
+				
+				SolvedPly solvedPly = depth == startDepth && resumedPly != null ? resumedPly : new SolvedPly(depth, plyBoardAmounts[depth]);
+				generatePly(solvedPly, threadPool, checkpoint);
+			}
+			
+		} finally {
+			
+			threadPool.shutdown();
+		}
+	}
+	
+	// writes the file of every ply that does not have one yet, the boards of a ply
+	// are the boards that follow the boards of the previous ply and are not over
+	private void enumeratePlies() throws IOException {
+		Path firstPlyPath = plyPath(0);
+		
+		if(!Files.exists(firstPlyPath)) {
+			
+			Path incompletePath = incompletePath(firstPlyPath);
+			Board board = new Board(new LocalBoardScoreCache(PackedBoardScoreCache.MINIMAL_CAPACITY));
+			
+			try(DataOutputStream output = BoardRecordSorter.outputStream(incompletePath)) {
+				
+				output.writeLong(board.columnHash());
+				output.writeLong(0);
+			}
+			
+			Files.move(incompletePath, firstPlyPath, StandardCopyOption.ATOMIC_MOVE);
+		}
+		
+		plyBoardAmounts[0] = plyBoardAmount(firstPlyPath);
+		
+		for(int depth = 1; depth <= maximalDepth; depth++) {
+			
+			Path plyPath = plyPath(depth);
+			
+			if(!Files.exists(plyPath)) {
+				
+				long startTime = System.nanoTime();
+				
+				Path incompletePath = incompletePath(plyPath);
+				BoardRecordSorter sorter = new BoardRecordSorter(incompletePath.toString());
+				
+				enumeratePly(depth, sorter);
+				sorter.sortInto(incompletePath);
+				
+				Files.move(incompletePath, plyPath, StandardCopyOption.ATOMIC_MOVE);
+				
+				double seconds = (System.nanoTime() - startTime) / NANOSECONDS_PER_SECOND;
+				
+				String result = String.format("ply %d: %d boards enumerated in %.1f seconds", depth, plyBoardAmount(plyPath), seconds);
+				System.out.println(result);
+			}
+			
+			plyBoardAmounts[depth] = plyBoardAmount(plyPath);
+		}
+	}
+	
+	private void enumeratePly(int depth, BoardRecordSorter sorter) throws IOException {
+		Board board = new Board(new LocalBoardScoreCache(PackedBoardScoreCache.MINIMAL_CAPACITY));
+		int width = Board.getWidth();
+		
+		long n = plyBoardAmounts[depth - 1];
+		
+		try(DataInputStream input = BoardRecordSorter.inputStream(plyPath(depth - 1))) {
+			
+			for(long i = 0; i < n; i++) {
+				
+				input.readLong();
+				long boardMoves = input.readLong();
+				
+				setupMoves(board, boardMoves, depth - 1);
+				
+				for(int x = 0; x < width; x++) {
+					
+					if(!board.moveLegal(x)) continue;
+					
+					board.playMove(x);
+					if(board.canPlayMoves()) sorter.add(board.columnHash(), boardMoves | (long) x << (MOVE_BIT_AMOUNT * (depth - 1)));
+					board.undoMove();
+				}
+			}
+		}
+	}
+	
+	// solves the boards of the ply file that have not been solved yet, in the order of the file
+	private void generatePly(SolvedPly solvedPly, ExecutorService threadPool, DataOutputStream checkpoint) throws IOException {
+		long startTime = System.nanoTime();
+		
+		int depth = solvedPly.depth;
+		int resumedBoardAmount = solvedPly.size;
+		
+		Board board = new Board(new LocalBoardScoreCache(PackedBoardScoreCache.MINIMAL_CAPACITY));
+		
+		long[] moves = new long[CHECKPOINT_BOARD_AMOUNT];
+		long[] columnHashes = new long[CHECKPOINT_BOARD_AMOUNT];
+		byte[] scores = new byte[CHECKPOINT_BOARD_AMOUNT];
+		
+		int boardAmount = 0;
+		int solvableBoardAmount = 0;
+		
+		long n = plyBoardAmounts[depth];
+		
+		try(DataInputStream input = BoardRecordSorter.inputStream(plyPath(depth))) {
+			
+			for(long i = 0; i < n; i++) {
+				
+				long columnHash = input.readLong();
+				long boardMoves = input.readLong();
+				
+				setupMoves(board, boardMoves, depth);
+				if(hasImmediateWin(board)) continue;
+				
+				if(solvableBoardAmount++ < resumedBoardAmount) {
+					
+					if(solvedPly.columnHashes[solvableBoardAmount - 1] != columnHash) {
+						
+						String errorMessage = String.format("The checkpoint does not match the boards of ply %d!", depth);
+						throw new IOException(errorMessage);
+					}
+					
+					continue;
+				}
+				
+				moves[boardAmount] = boardMoves;
+				columnHashes[boardAmount] = columnHash;
+				
+				boardAmount++;
+				
+				if(boardAmount < CHECKPOINT_BOARD_AMOUNT) continue;
+				
+				solveBoards(solvedPly, moves, columnHashes, scores, boardAmount, threadPool, checkpoint);
+				boardAmount = 0;
+				
+				String progress = String.format("ply %d: %d of %d boards visited, %d boards solved", depth, i + 1, n, solvedPly.size);
+				System.out.println(progress);
+			}
+		}
+		
+		if(boardAmount > 0) solveBoards(solvedPly, moves, columnHashes, scores, boardAmount, threadPool, checkpoint);
+		
+		if(resumedBoardAmount > solvableBoardAmount) {
+			
+			String errorMessage = String.format("The checkpoint holds more boards of ply %d than there are!", depth);
+			throw new IOException(errorMessage);
+		}
+		
+		nextPly = solvedPly;
+		
+		double seconds = (System.nanoTime() - startTime) / NANOSECONDS_PER_SECOND;
+		
+		String result = String.format("ply %d: %d boards solved in %.1f seconds", depth, solvedPly.size, seconds);
+		System.out.println(result);
+	}
+	
+	// solves the given boards in parallel and appends them to the checkpoint and the solved ply
+	private void solveBoards(SolvedPly solvedPly, long[] moves, long[] columnHashes, byte[] scores, int boardAmount, ExecutorService threadPool, DataOutputStream checkpoint) throws IOException {
+		solve(moves, scores, boardAmount, solvedPly.depth, threadPool);
+		
+		for(int i = 0; i < boardAmount; i++) {
+			
+			checkpoint.writeLong(columnHashes[i]);
+			checkpoint.writeByte(scores[i]);
+			
+			solvedPly.add(columnHashes[i], scores[i]);
+		}
+		
+		checkpoint.flush();
+	}
+	
+	private void solve(long[] moves, byte[] scores, int boardAmount, int depth, ExecutorService threadPool) {
+		AtomicInteger nextIndex = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		
+		for(Board board : boards) {
+			
+			futures.add(threadPool.submit(() -> {
+				
+				while(true) {
+					
+					int i = nextIndex.getAndIncrement();
+					if(i >= boardAmount) return;
+					
+					setupMoves(board, moves[i], depth);
+					scores[i] = (byte) board.evaluate();
+				}
+			}));
+		}
+		
+		for(Future<?> future : futures) {
+			
+			try {
+				
+				future.get();
+				
+			} catch(InterruptedException exception) {
+				
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("The opening book generation was interrupted!", exception);
+				
+			} catch(ExecutionException exception) {
+				
+				throw new IllegalStateException("A board could not be solved!", exception.getCause());
+			}
+		}
+	}
+	
+	// reads the boards solved by an earlier generation, drops an incomplete last record and returns
+	// the solved boards of the last ply in the checkpoint (null if there are none), the solved boards
+	// of the ply after it become the next ply, the plies of the checkpoint start with the deepest one
+	private SolvedPly loadCheckpoint() throws IOException {
+		if(!Files.exists(checkpointPath)) return null;
+		
+		long byteSize = Files.size(checkpointPath);
+		if(byteSize == 0) return null;
+		
+		long recordAmount = (byteSize - CHECKPOINT_HEADER_BYTE_SIZE) / CHECKPOINT_RECORD_BYTE_SIZE;
+		
+		SolvedPly solvedPly = null;
+		
+		try(DataInputStream checkpoint = BoardRecordSorter.inputStream(checkpointPath)) {
+			
+			if(checkpoint.readInt() != CHECKPOINT_MAGIC_NUMBER) throw new IOException("The file is not an opening book generation checkpoint!");
+			if(checkpoint.readInt() != maximalDepth) throw new IOException("The checkpoint belongs to an opening book with a different maximal depth!");
+			
+			for(long i = 0; i < recordAmount; i++) {
+				
+				long columnHash = checkpoint.readLong();
+				byte score = checkpoint.readByte();
+				
+				int depth = ColumnHashTable.stoneAmount(columnHash);
+				
+				if(solvedPly == null || depth != solvedPly.depth) {
+					
+					int expectedDepth = solvedPly == null ? maximalDepth : solvedPly.depth - 1;
+					if(depth != expectedDepth) throw new IOException("The checkpoint does not hold the plies in order!");
+					
+					nextPly = solvedPly;
+					solvedPly = new SolvedPly(depth, plyBoardAmounts[depth]);
+				}
+				
+				solvedPly.add(columnHash, score);
+			}
+			
+		} catch(EOFException exception) {
+			
+			throw new IOException("The checkpoint is incomplete!", exception);
+		}
+		
+		try(FileChannel channel = FileChannel.open(checkpointPath, StandardOpenOption.WRITE)) {
+			
+			channel.truncate(CHECKPOINT_HEADER_BYTE_SIZE + recordAmount * CHECKPOINT_RECORD_BYTE_SIZE);
+		}
+		
+		String result = String.format("%d solved boards have been loaded from the checkpoint", recordAmount);
+		System.out.println(result);
+		
+		return solvedPly;
+	}
+	
+	// saves all solved boards of the checkpoint and returns their number, the boards
+	// are read ordered by ply (which takes two passes over the checkpoint) so that no
+	// ordered copy of them is needed, boards with less played moves come first as
+	// they win collisions in the regular format
+	private int save(Path path) throws IOException {
+		long byteSize = Files.size(checkpointPath);
+		int n = Math.toIntExact((byteSize - CHECKPOINT_HEADER_BYTE_SIZE) / CHECKPOINT_RECORD_BYTE_SIZE);
+		
+		int[] plyStarts = new int[maximalDepth + 2];
+		
+		try(DataInputStream checkpoint = BoardRecordSorter.inputStream(checkpointPath)) {
+			
+			checkpoint.skipNBytes(CHECKPOINT_HEADER_BYTE_SIZE);
+			
+			for(int i = 0; i < n; i++) {
+				
+				plyStarts[ColumnHashTable.stoneAmount(checkpoint.readLong()) + 1]++;
+				checkpoint.readByte();
+			}
+		}
+		
+		for(int i = 1; i < plyStarts.length; i++) plyStarts[i] += plyStarts[i - 1];
+		
+		long[] columnHashes = new long[n];
+		byte[] scores = new byte[n];
+		
+		try(DataInputStream checkpoint = BoardRecordSorter.inputStream(checkpointPath)) {
+			
+			checkpoint.skipNBytes(CHECKPOINT_HEADER_BYTE_SIZE);
+			
+			for(int i = 0; i < n; i++) {
+				
+				long columnHash = checkpoint.readLong();
+				int j = plyStarts[ColumnHashTable.stoneAmount(columnHash)]++;
+				
+				columnHashes[j] = columnHash;
+				scores[j] = checkpoint.readByte();
+			}
+		}
+		
+		if(!path.toString().endsWith(REGULAR_FORMAT_FILE_EXTENSION)) {
+			
+			CompressedBoardScoreBookWriter writer = new CompressedBoardScoreBookWriter(columnHashes, scores, 0, maximalDepth, CompressedBoardScoreBookWriter.DEFAULT_FINGERPRINT_BIT_AMOUNT);
+			writer.writeToFile(path);
+			
+			return n;
+		}
+		
+		int capacity = BigInteger.valueOf((long) REGULAR_FORMAT_SLOTS_PER_BOARD * n).nextProbablePrime().intValueExact();
+		
+		OpeningBoardScoreCache openingBook = new OpeningBoardScoreCache(capacity, maximalDepth);
+		openingBook.loadFromEntries(columnHashes, scores);
+		openingBook.saveToFile(path);
+		
+		return n;
+	}
+	
+	private void deleteFiles() throws IOException {
+		Files.delete(checkpointPath);
+		
+		for(int depth = 0; depth <= maximalDepth; depth++) Files.delete(plyPath(depth));
+	}
+	
+	private Path plyPath(int depth) {
+		return Path.of(path + PLY_FILE_EXTENSION + depth);
+	}
+	
+	private class NextPlyBoardScoreBook implements BoardScoreBook {
+		
+		@Override
+		public int boardScore(Board board) {
+			SolvedPly nextPly = OpeningBookGenerator.this.nextPly;
+			if(nextPly == null || board.playedMoveAmount() != nextPly.depth) return MISSING_BOARD_SCORE;
+			
+			return nextPly.score(board.columnHash());
+		}
+		
+		@Override
+		public int maximalDepth() {
+			return maximalDepth;
+		}
+		
+	}
+	
+	// the solved boards of a single ply in the order of its ply file, which is sorted by column hash
+	private class SolvedPly {
+		
+		private final int depth;
+		
+		private final long[] columnHashes;
+		private final byte[] scores;
+		
+		private int size;
+		
+		// the ply file holds at least as many boards as there are solved boards
+		private SolvedPly(int depth, long plyBoardAmount) {
+			this.depth = depth;
+			
+			int capacity = Math.toIntExact(plyBoardAmount);
+			
+			this.columnHashes = new long[capacity];
+			this.scores = new byte[capacity];
+		}
+		
+		private void add(long columnHash, byte score) {
+			columnHashes[size] = columnHash;
+			scores[size] = score;
+			
+			size++;
+		}
+		
+		private int score(long columnHash) {
+			int index = Arrays.binarySearch(columnHashes, 0, size, columnHash);
+			if(index < 0) return BoardScoreBook.MISSING_BOARD_SCORE;
+			
+			return scores[index];
+		}
+		
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			
+			System.err.println("The path and the maximal depth of the opening book are missing!");
+			return;
+		}
+		
+		Path path = Path.of(args[0]);
+		int maximalDepth = Integer.parseInt(args[1]);
+		int threadAmount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		
+		if(maximalDepth < 0 || maximalDepth > LARGEST_MAXIMAL_DEPTH) {
+			
+			String errorMessage = String.format("The maximal depth must be between 0 and %d!", LARGEST_MAXIMAL_DEPTH);
+			System.err.println(errorMessage);
+			return;
+		}
+		
+		OpeningBookGenerator generator = new OpeningBookGenerator(maximalDepth, threadAmount, args[0]);
+		generator.generate();
+		
+		int boardAmount = generator.save(path);
+		generator.deleteFiles();
+		
+		String result = String.format("The opening book with %d boards has been saved to %s", boardAmount, path);
+		System.out.println(result);
+	}
+	
+	private static void setupMoves(Board board, long moves, int moveAmount) {
+		while(board.playedMoveAmount() > 0) board.undoMove();
+		
+		for(int i = 0; i < moveAmount; i++) {
+			
+			int x = (int) ((moves >>> (MOVE_BIT_AMOUNT * i)) & MOVE_MASK);
+			board.playMove(x);
+		}
+	}
+	
+	static boolean hasImmediateWin(Board board) {
+		int width = Board.getWidth();
+		
+		for(int x = 0; x < width; x++) {
+			
+			if(!board.moveLegal(x)) continue;
+			
+			board.playMove(x);
+			boolean win = board.over() && board.getOutcome() != BoardOutcome.DRAW;
+			board.undoMove();
+			
+			if(win) return true;
+		}
+		
+		return false;
+	}
+	
+	private static Path incompletePath(Path path) {
+		return Path.of(path + INCOMPLETE_FILE_EXTENSION);
+	}
+	
+	private static long plyBoardAmount(Path plyPath) throws IOException {
+		return Files.size(plyPath) / BoardRecordSorter.RECORD_BYTE_SIZE;
+	}
+	
+	private static Thread createThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, THREAD_NAME);
+		thread.setDaemon(true);
+		
+		return thread;
+	}
+	
+}
@@ -0,0 +1,29 @@
+package net.kite.tool;
+
+import net.kite.Kite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// saves the built-in opening book in the pre-decoded format so that it can be
+// memory-mapped or, in the demo, used without decoding it, the argument is the
+// path of the opening book file
+public class OpeningBookSaver {
+	
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			
+			System.err.println("The path of the opening book is missing!");
+			return;
+		}
+		
+		Path path = Path.of(args[0]);
+		
+		Path directoryPath = path.toAbsolutePath().getParent();
+		if(directoryPath != null) Files.createDirectories(directoryPath);
+		
+		Kite.saveOpeningBook(path);
+	}
+	
+}
@@ -0,0 +1,117 @@
+package net.kite.tool;
+
+import net.kite.board.score.book.compressed.CompressedBoardScoreBookWriter;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// splits an opening book file (or the built-in opening book) into compressed shards of
+// consecutive depths named after their smallest and largest depth (for example "9-10.kmb")
+// so that the shards of small depths can be used before the others have been loaded, the
+// arguments are the directory of the shards, the path of the opening book ("-" for the
+// built-in one) and the largest depth of each shard separated by commas
+public class OpeningBookSharder {
+	
+	private static final String DEFAULT_SHARD_MAXIMAL_DEPTHS = "8,10,12,13,14";
+	private static final String SHARD_MAXIMAL_DEPTH_SEPARATOR = ",";
+	
+	private static final String SHARD_FILE_NAME_FORMAT = "%d-%d.kmb";
+	
+	private static final double BYTES_PER_KILOBYTE = 1024;
+	
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			
+			System.err.println("The directory of the shards is missing!");
+			return;
+		}
+		
+		Path directoryPath = Path.of(args[0]);
+		
+		String openingBookPath = args.length > 1 ? args[1] : OpeningBookCompressor.BUILT_IN_OPENING_BOOK_PATH;
+		String[] shardMaximalDepthStrings = (args.length > 2 ? args[2] : DEFAULT_SHARD_MAXIMAL_DEPTHS).split(SHARD_MAXIMAL_DEPTH_SEPARATOR);
+		
+		OpeningBoardScoreCache openingBook = OpeningBookCompressor.openingBook(openingBookPath);
+		if(openingBook == null) return;
+		
+		int shardAmount = shardMaximalDepthStrings.length;
+		int[] shardMaximalDepths = new int[shardAmount];
+		
+		for(int i = 0; i < shardAmount; i++) {
+			
+			int shardMaximalDepth = Integer.parseInt(shardMaximalDepthStrings[i].trim());
+			
+			if(shardMaximalDepth < 0 || (i > 0 && shardMaximalDepth <= shardMaximalDepths[i - 1])) {
+				
+				System.err.println("The largest depths of the shards must be ascending!");
+				return;
+			}
+			
+			shardMaximalDepths[i] = shardMaximalDepth;
+		}
+		
+		if(shardMaximalDepths[shardAmount - 1] != openingBook.maximalDepth()) {
+			
+			String errorMessage = String.format("The last shard must end at the maximal depth of the opening book (%d)!", openingBook.maximalDepth());
+			System.err.println(errorMessage);
+			return;
+		}
+		
+		ColumnHashTable foundBoards = OpeningBookCompressor.foundBoards(openingBook);
+		
+		long[] columnHashes = foundBoards.columnHashes();
+		byte[] scores = foundBoards.scores();
+		
+		int n = columnHashes.length;
+		
+		int[] shardIndices = new int[n];
+		int[] shardSizes = new int[shardAmount];
+		
+		for(int i = 0; i < n; i++) {
+			
+			int depth = ColumnHashTable.stoneAmount(columnHashes[i]);
+			
+			int shardIndex = 0;
+			while(shardMaximalDepths[shardIndex] < depth) shardIndex++;
+			
+			shardIndices[i] = shardIndex;
+			shardSizes[shardIndex]++;
+		}
+		
+		Files.createDirectories(directoryPath);
+		
+		System.out.println("depths | boards | kilobytes");
+		
+		for(int shardIndex = 0; shardIndex < shardAmount; shardIndex++) {
+			
+			long[] shardColumnHashes = new long[shardSizes[shardIndex]];
+			byte[] shardScores = new byte[shardSizes[shardIndex]];
+			
+			int m = 0;
+			
+			for(int i = 0; i < n; i++) {
+				
+				if(shardIndices[i] != shardIndex) continue;
+				
+				shardColumnHashes[m] = columnHashes[i];
+				shardScores[m] = scores[i];
+				
+				m++;
+			}
+			
+			int minimalDepth = shardIndex == 0 ? 0 : shardMaximalDepths[shardIndex - 1] + 1;
+			int maximalDepth = shardMaximalDepths[shardIndex];
+			
+			Path path = directoryPath.resolve(String.format(SHARD_FILE_NAME_FORMAT, minimalDepth, maximalDepth));
+			
+			CompressedBoardScoreBookWriter writer = new CompressedBoardScoreBookWriter(shardColumnHashes, shardScores, minimalDepth, maximalDepth, CompressedBoardScoreBookWriter.DEFAULT_FINGERPRINT_BIT_AMOUNT);
+			writer.writeToFile(path);
+			
+			String result = String.format("%d-%d | %d | %.1f", minimalDepth, maximalDepth, m, Files.size(path) / BYTES_PER_KILOBYTE);
+			System.out.println(result);
+		}
+	}
+	
+}
@@ -0,0 +1,306 @@
+package net.kite.tool;
+
+import net.kite.board.Board;
+import net.kite.board.score.book.BoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBook;
+import net.kite.board.score.book.disabled.DisabledBoardScoreBook;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCache;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCaches;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+// verifies an opening book file (or the built-in opening book) by checking its size and
+// checksum and by solving a random sample of its boards again without any opening book,
+// as the books only store partial column hashes or fingerprints a random playout finds a
+// board's own entry, the boards are sampled at random depths between the minimal sample depth
+// (by default a few plies above the maximal depth, as shallow boards take very long to solve
+// without a book) and the maximal depth, the arguments are the path of the opening book ("-"
+// for the built-in one), the number of sampled boards, the minimal sample depth, the number
+// of threads (all processors by default) and the expected checksum of the bundled opening
+// book in hexadecimal (as it does not store a checksum itself)
+public class OpeningBookVerifier {
+	
+	private static final int DEFAULT_SAMPLE_SIZE = 256;
+	private static final int DEFAULT_SAMPLE_DEPTH_RANGE = 4;
+	
+	// the number of random playouts per sampled board after which sampling
+	// gives up, as small books may not contain enough different boards
+	private static final int LARGEST_PLAYOUT_AMOUNT_PER_SAMPLED_BOARD = 64;
+	
+	private static final String THREAD_NAME = "Kite opening book verification thread";
+	
+	private static final int SCORE_CACHE_CAPACITY = 1 << 21;
+	
+	private static final int CHECKSUM_RADIX = 16;
+	
+	private static final double NANOSECONDS_PER_SECOND = 1000000000;
+	
+	private final BoardScoreBook openingBook;
+	
+	private final int minimalSampleDepth;
+	private final int maximalSampleDepth;
+	
+	private final Random random = new Random();
+	
+	// the moves and book scores of the sampled boards
+	private final List<int[]> sampledMoves = new ArrayList<>();
+	private final List<Integer> sampledScores = new ArrayList<>();
+	
+	private OpeningBookVerifier(BoardScoreBook openingBook, int minimalSampleDepth) {
+		this.openingBook = openingBook;
+		
+		this.minimalSampleDepth = minimalSampleDepth;
+		this.maximalSampleDepth = openingBook.maximalDepth();
+	}
+	
+	private void sample(int sampleSize) {
+		Board board = new Board(new LocalBoardScoreCache(PackedBoardScoreCache.MINIMAL_CAPACITY));
+		ColumnHashTable sampledBoards = new ColumnHashTable();
+		
+		int width = Board.getWidth();
+		long playoutAmount = (long) LARGEST_PLAYOUT_AMOUNT_PER_SAMPLED_BOARD * sampleSize;
+		
+		for(long i = 0; i < playoutAmount && sampledMoves.size() < sampleSize; i++) {
+			
+			while(board.playedMoveAmount() > 0) board.undoMove();
+			
+			int depth = minimalSampleDepth + random.nextInt(maximalSampleDepth - minimalSampleDepth + 1);
+			int[] moves = new int[depth];
+			
+			while(board.playedMoveAmount() < depth && board.canPlayMoves()) {
+				
+				int x = random.nextInt(width);
+				if(!board.moveLegal(x)) continue;
+				
+				moves[board.playedMoveAmount()] = x;
+				board.playMove(x);
+			}
+			
+			if(board.over() || OpeningBookGenerator.hasImmediateWin(board)) continue;
+			
+			int score = openingBook.boardScore(board);
+			if(score == BoardScoreBook.MISSING_BOARD_SCORE) continue;
+			
+			if(!sampledBoards.put(board.columnHash(), score)) continue;
+			
+			sampledMoves.add(moves);
+			sampledScores.add(score);
+		}
+	}
+	
+	private void solve(int threadAmount) {
+		int n = sampledMoves.size();
+		
+		if(n == 0) {
+			
+			System.err.println("The random playouts did not find any board of the opening book!");
+			return;
+		}
+		
+		AtomicInteger nextIndex = new AtomicInteger();
+		AtomicLong nodeAmount = new AtomicLong();
+		
+		List<String> mismatches = Collections.synchronizedList(new ArrayList<>());
+		
+		ExecutorService threadPool = Executors.newFixedThreadPool(threadAmount, OpeningBookVerifier::createThread);
+		List<Future<?>> futures = new ArrayList<>();
+		
+		long startTime = System.nanoTime();
+		
+		for(int i = 0; i < threadAmount; i++) {
+			
+			futures.add(threadPool.submit(() -> {
+				
+				Board board = new Board(new LocalBoardScoreCache(SCORE_CACHE_CAPACITY));
+				board.setOpeningBook(DisabledBoardScoreBook.INSTANCE);
+				
+				while(true) {
+					
+					int j = nextIndex.getAndIncrement();
+					if(j >= n) return;
+					
+					while(board.playedMoveAmount() > 0) board.undoMove();
+					for(int x : sampledMoves.get(j)) board.playMove(x);
+					
+					long startNodeAmount = board.getNodeAmount();
+					int score = board.evaluate();
+					
+					nodeAmount.addAndGet(board.getNodeAmount() - startNodeAmount);
+					
+					int bookScore = sampledScores.get(j);
+					if(score == bookScore) continue;
+					
+					String mismatch = String.format("%s | %d | %d", board.movesString(), bookScore, score);
+					mismatches.add(mismatch);
+				}
+			}));
+		}
+		
+		try {
+			
+			for(Future<?> future : futures) {
+				
+				try {
+					
+					future.get();
+					
+				} catch(InterruptedException exception) {
+					
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("The opening book verification was interrupted!", exception);
+					
+				} catch(ExecutionException exception) {
+					
+					throw new IllegalStateException("A board could not be solved!", exception.getCause());
+				}
+			}
+			
+		} finally {
+			
+			threadPool.shutdown();
+		}
+		
+		double seconds = (System.nanoTime() - startTime) / NANOSECONDS_PER_SECOND;
+		
+		if(!mismatches.isEmpty()) {
+			
+			System.out.println("moves | book score | solved score");
+			for(String mismatch : mismatches) System.out.println(mismatch);
+		}
+		
+		System.out.println("boards | mismatches | seconds | boards per second | nodes per second");
+		
+		String result = String.format("%d | %d | %.1f | %.1f | %.0f", n, mismatches.size(), seconds, n / seconds, nodeAmount.get() / seconds);
+		System.out.println(result);
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			
+			System.err.println("The path of the opening book is missing!");
+			return;
+		}
+		
+		String openingBookPath = args[0];
+		
+		int sampleSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLE_SIZE;
+		int threadAmount = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		
+		String expectedChecksum = args.length > 4 ? args[4] : null;
+		
+		BoardScoreBook openingBook = verifiedOpeningBook(openingBookPath, expectedChecksum);
+		if(openingBook == null) return;
+		
+		int maximalDepth = openingBook.maximalDepth();
+		int minimalSampleDepth = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(maximalDepth - DEFAULT_SAMPLE_DEPTH_RANGE, 0);
+		
+		if(minimalSampleDepth < 0 || minimalSampleDepth > maximalDepth) {
+			
+			String errorMessage = String.format("The minimal sample depth must be between 0 and the maximal depth of the opening book (%d)!", maximalDepth);
+			System.err.println(errorMessage);
+			return;
+		}
+		
+		OpeningBookVerifier verifier = new OpeningBookVerifier(openingBook, minimalSampleDepth);
+		verifier.sample(sampleSize);
+		verifier.solve(threadAmount);
+	}
+	
+	// the opening book at the given path or the built-in opening book ("-") if its
+	// size and checksum are valid, null (after reporting the problem) otherwise
+	private static BoardScoreBook verifiedOpeningBook(String openingBookPath, String expectedChecksum) throws IOException {
+		if(openingBookPath.equals(OpeningBookCompressor.BUILT_IN_OPENING_BOOK_PATH)) return verifiedBuiltInOpeningBook(expectedChecksum);
+		
+		Path path = Path.of(openingBookPath);
+		
+		try {
+			
+			BoardScoreBook openingBook;
+			
+			if(CompressedBoardScoreBook.compressedFile(path)) {
+				
+				openingBook = CompressedBoardScoreBook.verifiedFromFile(path);
+				
+			} else {
+				
+				openingBook = OpeningBoardScoreCache.verifiedFromFile(path);
+			}
+			
+			System.out.println("The size and checksum of the opening book are valid.");
+			return openingBook;
+			
+		} catch(IOException exception) {
+			
+			String errorMessage = String.format("The opening book is invalid: %s", exception.getMessage());
+			System.err.println(errorMessage);
+			
+			return null;
+		}
+	}
+	
+	private static BoardScoreBook verifiedBuiltInOpeningBook(String expectedChecksum) throws IOException {
+		InputStream inputStream = OpeningBookVerifier.class.getResourceAsStream(OpeningBoardScoreCaches.DEFAULT_RESOURCE_PATH);
+		
+		if(inputStream == null) {
+			
+			System.err.println("The built-in opening book could not be found in resources!");
+			return null;
+		}
+		
+		byte[] bytes;
+		
+		try(inputStream) {
+			
+			bytes = inputStream.readAllBytes();
+		}
+		
+		long expectedByteSize = 2L * OpeningBoardScoreCaches.DEFAULT.getCapacity();
+		
+		if(bytes.length != expectedByteSize) {
+			
+			String errorMessage = String.format("The built-in opening book has %d bytes instead of %d!", bytes.length, expectedByteSize);
+			System.err.println(errorMessage);
+			
+			return null;
+		}
+		
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		
+		int checksum = (int) crc.getValue();
+		
+		String result = String.format("The built-in opening book has the checksum %08x.", checksum);
+		System.out.println(result);
+		
+		if(expectedChecksum != null && checksum != Integer.parseUnsignedInt(expectedChecksum, CHECKSUM_RADIX)) {
+			
+			System.err.println("The checksum of the built-in opening book is not the expected one!");
+			return null;
+		}
+		
+		return OpeningBookCompressor.openingBook(OpeningBookCompressor.BUILT_IN_OPENING_BOOK_PATH);
+	}
+	
+	private static Thread createThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, THREAD_NAME);
+		thread.setDaemon(true);
+		
+		return thread;
+	}
+	
+}
@@ -1,11 +1,22 @@
 package net.kite.test;
 
 import net.kite.Kite;
+import net.kite.ScoreCacheSize;
+import net.kite.SearchProfile;
+import net.kite.SharedScoreCache;
+import net.kite.search.driver.SearchDriver;
+import net.kite.skill.level.SkillLevel;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 public class KiteTest {
 	
+	private static final int BOARD_WIDTH = 7;
+	
+	private static final int TEST_THREAD_AMOUNT = 4;
+	
 	private static final int[][] TEST_BOARD_MOVES = new int[][] {
 			{ },
 			{ 2 },
@@ -114,4 +125,131 @@ public class KiteTest {
 		});
 	}
 	
+	@Test
+	public void testSharedKite() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			SharedScoreCache scoreCache = SharedScoreCache.create();
+			
+			Kite solver1 = Kite.createInstance(scoreCache);
+			Kite solver2 = Kite.createInstance(scoreCache);
+			
+			int n = TEST_BOARD_MOVES.length;
+			for(int i = 0; i < n; i++) {
+				
+				int[] testBoardMoves = TEST_BOARD_MOVES[i];
+				int testBoardEvaluation = TEST_BOARD_EVALUATIONS[i];
+				
+				Kite solver = (i & 1) == 0 ? solver1 : solver2;
+				solver.setupBoard(testBoardMoves);
+				
+				int e = solver.evaluateBoard();
+				Assertions.assertEquals(e, testBoardEvaluation);
+			}
+			
+		});
+	}
+	
+	@Test
+	public void testOffHeapSharedKite() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			SharedScoreCache scoreCache = SharedScoreCache.createOffHeap(ScoreCacheSize.DEFAULT);
+			
+			Kite solver1 = Kite.createInstance(scoreCache);
+			Kite solver2 = Kite.createInstance(scoreCache);
+			
+			int n = TEST_BOARD_MOVES.length;
+			for(int i = 0; i < n; i++) {
+				
+				int[] testBoardMoves = TEST_BOARD_MOVES[i];
+				int testBoardEvaluation = TEST_BOARD_EVALUATIONS[i];
+				
+				// every other board is evaluated by several threads writing to the off-heap entries at once
+				boolean evenBoard = (i & 1) == 0;
+				
+				Kite solver = evenBoard ? solver1 : solver2;
+				solver.setupBoard(testBoardMoves);
+				
+				int e = evenBoard ? solver.evaluateBoard() : solver.evaluateBoard(TEST_THREAD_AMOUNT);
+				Assertions.assertEquals(e, testBoardEvaluation);
+			}
+			
+			scoreCache.release();
+			
+		});
+	}
+	
+	@Test
+	public void testParallelKite() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			Kite solver = Kite.createInstance();
+			
+			int[] moveScores = new int[BOARD_WIDTH];
+			
+			int n = TEST_BOARD_MOVES.length;
+			for(int i = 0; i < n; i++) {
+				
+				int[] testBoardMoves = TEST_BOARD_MOVES[i];
+				int testBoardEvaluation = TEST_BOARD_EVALUATIONS[i];
+				
+				solver.setupBoard(testBoardMoves);
+				
+				int e = solver.evaluateBoard(TEST_THREAD_AMOUNT);
+				Assertions.assertEquals(e, testBoardEvaluation);
+				
+				solver.evaluateAllMoves(moveScores, TEST_THREAD_AMOUNT);
+				Assertions.assertEquals(maximalMoveScore(moveScores), testBoardEvaluation);
+				
+				int optimalMove = solver.optimalMove(TEST_THREAD_AMOUNT);
+				Assertions.assertEquals(moveScores[optimalMove - 1], testBoardEvaluation);
+				
+				int skilledMove = solver.skilledMove(SkillLevel.GRANDMASTER, TEST_THREAD_AMOUNT);
+				Assertions.assertTrue(solver.moveLegal(skilledMove));
+			}
+			
+		});
+	}
+	
+	@Test
+	public void testSearchDrivers() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			for(SearchDriver searchDriver : SearchDriver.values()) {
+				
+				// a single solver evaluates all boards so that the drivers start from the previous score
+				Kite solver = Kite.createInstance(SearchProfile.BOOK_BACKED_INTERACTIVE.withSearchDriver(searchDriver));
+				
+				int n = TEST_BOARD_MOVES.length;
+				for(int i = 0; i < n; i++) {
+					
+					int[] testBoardMoves = TEST_BOARD_MOVES[i];
+					int testBoardEvaluation = TEST_BOARD_EVALUATIONS[i];
+					
+					// the board before the last move is evaluated first like a bot would before playing a move
+					int l = testBoardMoves.length;
+					if(l > 0) {
+						
+						solver.setupBoard(Arrays.copyOf(testBoardMoves, l - 1));
+						solver.evaluateBoard();
+					}
+					
+					solver.setupBoard(testBoardMoves);
+					
+					int e = solver.evaluateBoard();
+					Assertions.assertEquals(e, testBoardEvaluation);
+				}
+			}
+			
+		});
+	}
+	
+	private static int maximalMoveScore(int[] moveScores) {
+		int maximalMoveScore = Integer.MIN_VALUE;
+		for(int moveScore : moveScores) maximalMoveScore = Math.max(maximalMoveScore, moveScore);
+		
+		return maximalMoveScore;
+	}
+	
 }
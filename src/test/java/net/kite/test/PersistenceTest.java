@@ -0,0 +1,305 @@
+package net.kite.test;
+
+import net.kite.Kite;
+import net.kite.SharedScoreCache;
+import net.kite.board.Board;
+import net.kite.board.score.book.BoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBook;
+import net.kite.board.score.book.compressed.CompressedBoardScoreBookWriter;
+import net.kite.board.score.cache.BoardScoreCache;
+import net.kite.board.score.cache.concurrent.ConcurrentBoardScoreCache;
+import net.kite.board.score.cache.direct.DirectBoardScoreCache;
+import net.kite.board.score.cache.local.LocalBoardScoreCache;
+import net.kite.board.score.cache.opening.OpeningBoardScoreCache;
+import net.kite.board.score.cache.packed.PackedBoardScoreCache;
+import net.kite.board.score.cache.snapshot.BoardScoreCacheSnapshots;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class PersistenceTest {
+	
+	private static final long SEED = 0;
+	
+	private static final int BOARD_WIDTH = 7;
+	
+	private static final int BOOK_BOARD_AMOUNT = 20000;
+	private static final int BOOK_BOARD_MAXIMAL_DEPTH = 20;
+	
+	// boards outside of these depths are written to the books as well
+	// to check that they are never found when looking up boards
+	private static final int BOOK_MINIMAL_DEPTH = 4;
+	private static final int BOOK_MAXIMAL_DEPTH = 12;
+	
+	private static final int BOOK_CAPACITY = 65536;
+	
+	private static final int MAXIMAL_SCORE = 18;
+	
+	private static final int SCORE_CACHE_CAPACITY = 4096;
+	private static final int SCORE_CACHE_ENTRY_AMOUNT = 3000;
+	
+	// the work of an entry is stored in six bits
+	private static final int SCORE_CACHE_WORK_AMOUNT = 64;
+	
+	private static final long HASH_MASK = (1L << 49) - 1;
+	
+	private static final int[][] SNAPSHOT_BOARD_MOVES = new int[][] {
+			{4, 4, 5, 3, 1, 2, 5, 3, 4, 6, 1, 4, 1},
+			{3, 6, 1, 4, 3, 2, 4, 2, 4},
+			{1, 7, 4, 1, 3, 2, 7, 5, 3},
+			{4, 7, 3, 2, 5, 6, 6, 1, 5, 7}
+	};
+	
+	@Test
+	public void testCompressedBook() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			List<String> boardMoves = randomBoardMoves();
+			
+			int n = boardMoves.size();
+			
+			long[] columnHashes = new long[n];
+			byte[] scores = new byte[n];
+			
+			Random random = new Random(SEED);
+			BoardScoreCache scoreCache = new LocalBoardScoreCache(SCORE_CACHE_CAPACITY);
+			
+			for(int i = 0; i < n; i++) {
+				
+				columnHashes[i] = Board.boardWithMoves(boardMoves.get(i), scoreCache).columnHash();
+				scores[i] = (byte) (random.nextInt(2 * MAXIMAL_SCORE + 1) - MAXIMAL_SCORE);
+			}
+			
+			int fingerprintBitAmount = CompressedBoardScoreBook.SMALLEST_FINGERPRINT_BIT_AMOUNT;
+			
+			CompressedBoardScoreBookWriter writer = new CompressedBoardScoreBookWriter(columnHashes, scores, BOOK_MINIMAL_DEPTH, BOOK_MAXIMAL_DEPTH, fingerprintBitAmount);
+			CompressedBoardScoreBook book = new CompressedBoardScoreBook(writer.write());
+			
+			Assertions.assertEquals(book.getEntryAmount(), n);
+			
+			for(int i = 0; i < n; i++) {
+				
+				Board board = Board.boardWithMoves(boardMoves.get(i), scoreCache);
+				
+				int depth = board.playedMoveAmount();
+				int expectedScore = depth < BOOK_MINIMAL_DEPTH || depth > BOOK_MAXIMAL_DEPTH ? BoardScoreBook.MISSING_BOARD_SCORE : scores[i];
+				
+				Assertions.assertEquals(book.score(columnHashes[i]), scores[i]);
+				Assertions.assertEquals(book.boardScore(board), expectedScore);
+			}
+			
+			Path path = Files.createTempFile("kite", ".kmb");
+			
+			try {
+				
+				writer.writeToFile(path);
+				
+				CompressedBoardScoreBook fileBook = CompressedBoardScoreBook.verifiedFromFile(path);
+				
+				Assertions.assertEquals(fileBook.checksum(), book.checksum());
+				Assertions.assertEquals(fileBook.minimalDepth(), BOOK_MINIMAL_DEPTH);
+				Assertions.assertEquals(fileBook.maximalDepth(), BOOK_MAXIMAL_DEPTH);
+				
+				for(int i = 0; i < n; i++) Assertions.assertEquals(fileBook.score(columnHashes[i]), scores[i]);
+				
+			} finally {
+				
+				Files.deleteIfExists(path);
+			}
+			
+		});
+		
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			
+			int fingerprintBitAmount = CompressedBoardScoreBook.SMALLEST_FINGERPRINT_BIT_AMOUNT - 1;
+			new CompressedBoardScoreBookWriter(new long[0], new byte[0], BOOK_MINIMAL_DEPTH, BOOK_MAXIMAL_DEPTH, fingerprintBitAmount);
+		});
+	}
+	
+	@Test
+	public void testOpeningBookFile() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			List<String> boardMoves = randomBoardMoves();
+			
+			int n = boardMoves.size();
+			
+			long[] columnHashes = new long[n];
+			byte[] scores = new byte[n];
+			
+			Random random = new Random(SEED);
+			BoardScoreCache scoreCache = new LocalBoardScoreCache(SCORE_CACHE_CAPACITY);
+			
+			Board[] boards = new Board[n];
+			
+			for(int i = 0; i < n; i++) {
+				
+				boards[i] = Board.boardWithMoves(boardMoves.get(i), scoreCache);
+				
+				columnHashes[i] = boards[i].columnHash();
+				scores[i] = (byte) (random.nextInt(2 * MAXIMAL_SCORE + 1) - MAXIMAL_SCORE);
+			}
+			
+			OpeningBoardScoreCache book = new OpeningBoardScoreCache(BOOK_CAPACITY, BOOK_MAXIMAL_DEPTH);
+			book.loadFromEntries(columnHashes, scores);
+			
+			// the first board of every index keeps its score
+			Set<Integer> filledIndices = new HashSet<>();
+			
+			for(int i = 0; i < n; i++) {
+				
+				int index = (int) Long.remainderUnsigned(columnHashes[i], BOOK_CAPACITY);
+				boolean firstBoard = filledIndices.add(index);
+				
+				if(boards[i].playedMoveAmount() > BOOK_MAXIMAL_DEPTH) Assertions.assertEquals(book.boardScore(boards[i]), BoardScoreBook.MISSING_BOARD_SCORE);
+				else if(firstBoard) Assertions.assertEquals(book.boardScore(boards[i]), scores[i]);
+			}
+			
+			Path path = Files.createTempFile("kite", ".kob");
+			
+			try {
+				
+				book.saveToFile(path);
+				
+				OpeningBoardScoreCache fileBook = OpeningBoardScoreCache.verifiedFromFile(path);
+				
+				Assertions.assertEquals(fileBook.checksum(), book.checksum());
+				Assertions.assertEquals(fileBook.getCapacity(), BOOK_CAPACITY);
+				Assertions.assertEquals(fileBook.maximalDepth(), BOOK_MAXIMAL_DEPTH);
+				
+				for(Board board : boards) Assertions.assertEquals(fileBook.boardScore(board), book.boardScore(board));
+				
+			} finally {
+				
+				Files.deleteIfExists(path);
+			}
+			
+		});
+	}
+	
+	@Test
+	public void testScoreCacheSnapshots() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			Random random = new Random(SEED);
+			
+			LocalBoardScoreCache scoreCache = new LocalBoardScoreCache(SCORE_CACHE_CAPACITY);
+			long[] hashes = new long[SCORE_CACHE_ENTRY_AMOUNT];
+			
+			for(int i = 0; i < SCORE_CACHE_ENTRY_AMOUNT; i++) {
+				
+				hashes[i] = random.nextLong() & HASH_MASK;
+				
+				int minimalScore = random.nextInt(2 * MAXIMAL_SCORE + 1) - MAXIMAL_SCORE;
+				int maximalScore = minimalScore + random.nextInt(MAXIMAL_SCORE + 1 - minimalScore);
+				
+				int work = random.nextInt(SCORE_CACHE_WORK_AMOUNT);
+				int move = random.nextInt(BOARD_WIDTH + 1) - 1;
+				
+				scoreCache.updateEntry(hashes[i], minimalScore, maximalScore, work, move);
+			}
+			
+			Path path = Files.createTempFile("kite", ".ksc");
+			
+			try {
+				
+				BoardScoreCacheSnapshots.save(scoreCache, path);
+				
+				LocalBoardScoreCache localScoreCache = BoardScoreCacheSnapshots.load(path, LocalBoardScoreCache::new);
+				ConcurrentBoardScoreCache concurrentScoreCache = BoardScoreCacheSnapshots.load(path, ConcurrentBoardScoreCache::new);
+				DirectBoardScoreCache directScoreCache = BoardScoreCacheSnapshots.map(path);
+				
+				PackedBoardScoreCache[] loadedScoreCaches = new PackedBoardScoreCache[] {
+						localScoreCache, concurrentScoreCache, directScoreCache
+				};
+				
+				for(PackedBoardScoreCache loadedScoreCache : loadedScoreCaches) {
+					
+					Assertions.assertEquals(loadedScoreCache.getCapacity(), SCORE_CACHE_CAPACITY);
+					Assertions.assertEquals(loadedScoreCache.filledEntryAmount(false), scoreCache.filledEntryAmount(false));
+					
+					for(long hash : hashes) Assertions.assertEquals(loadedScoreCache.entry(hash), scoreCache.entry(hash));
+				}
+				
+				directScoreCache.release();
+				
+			} finally {
+				
+				Files.deleteIfExists(path);
+			}
+			
+		});
+	}
+	
+	@Test
+	public void testSharedScoreCacheSnapshots() {
+		Assertions.assertDoesNotThrow(() -> {
+			
+			SharedScoreCache scoreCache = SharedScoreCache.create();
+			Kite solver = Kite.createInstance(scoreCache);
+			
+			for(int[] boardMoves : SNAPSHOT_BOARD_MOVES) {
+				
+				solver.setupBoard(boardMoves);
+				solver.evaluateBoard();
+			}
+			
+			Path path = Files.createTempFile("kite", ".ksc");
+			Path loadedPath = Files.createTempFile("kite", ".ksc");
+			
+			try {
+				
+				scoreCache.save(path);
+				
+				// saving a loaded score cache again needs to write the same file
+				SharedScoreCache.load(path).save(loadedPath);
+				Assertions.assertEquals(Files.mismatch(path, loadedPath), -1);
+				
+				SharedScoreCache offHeapScoreCache = SharedScoreCache.loadOffHeap(path);
+				offHeapScoreCache.save(loadedPath);
+				offHeapScoreCache.release();
+				
+				Assertions.assertEquals(Files.mismatch(path, loadedPath), -1);
+				
+			} finally {
+				
+				Files.deleteIfExists(path);
+				Files.deleteIfExists(loadedPath);
+			}
+			
+		});
+	}
+	
+	// the moves of distinct boards of random games
+	private static List<String> randomBoardMoves() {
+		Random random = new Random(SEED);
+		BoardScoreCache scoreCache = new LocalBoardScoreCache(SCORE_CACHE_CAPACITY);
+		
+		List<String> boardMoves = new ArrayList<>();
+		Set<Long> columnHashes = new HashSet<>();
+		
+		for(int i = 0; i < BOOK_BOARD_AMOUNT; i++) {
+			
+			Board board = new Board(scoreCache);
+			int depth = random.nextInt(BOOK_BOARD_MAXIMAL_DEPTH + 1);
+			
+			while(board.playedMoveAmount() < depth && board.canPlayMoves()) {
+				
+				int x = random.nextInt(BOARD_WIDTH);
+				if(board.moveLegal(x)) board.playMove(x);
+			}
+			
+			if(columnHashes.add(board.columnHash())) boardMoves.add(board.movesString());
+		}
+		
+		return boardMoves;
+	}
+	
+}